@@ -7,27 +7,35 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import jakarta.annotation.Resource;
 import jakarta.enterprise.inject.Any;
 import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
 import jakarta.json.JsonObject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validator;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.InternalServerErrorException;
 import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
@@ -42,6 +50,7 @@ import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.ResponseBuilder;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriBuilder;
 import jakarta.ws.rs.core.UriInfo;
 
@@ -51,6 +60,7 @@ import io.xlate.jsonapi.rvp.internal.JsonApiHandlerChain;
 import io.xlate.jsonapi.rvp.internal.persistence.boundary.PersistenceController;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMeta;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMetamodel;
+import io.xlate.jsonapi.rvp.internal.rs.boundary.ResponseCache;
 import io.xlate.jsonapi.rvp.internal.rs.boundary.Responses;
 import io.xlate.jsonapi.rvp.internal.rs.entity.InternalContext;
 import io.xlate.jsonapi.rvp.internal.rs.entity.InternalQuery;
@@ -65,6 +75,12 @@ public abstract class JsonApiResource {
     private static final String CLIENT_PATH = "internal/rs/boundary/client.js";
     private static final JsonApiHandler<?> DEFAULT_HANDLER = new DefaultJsonApiHandler();
 
+    /**
+     * Default size, in bytes, of the cache of response documents shared by
+     * the resources using a persistence unit.
+     */
+    public static final long DEFAULT_RESPONSE_CACHE_SIZE = 16L * 1024 * 1024;
+
     @Inject
     @Any
     Instance<JsonApiHandler<?>> handlers;
@@ -87,6 +103,9 @@ public abstract class JsonApiResource {
     @Inject
     TransactionalValidator txValidator;
 
+    @Resource
+    TransactionSynchronizationRegistry txRegistry;
+
     Date initializationDate = new Date();
     CacheControl cacheControl = new CacheControl();
 
@@ -115,6 +134,17 @@ public abstract class JsonApiResource {
         cacheControl.setPrivate(true);
     }
 
+    /**
+     * Size, in bytes, of the cache of response documents for resource types
+     * configured with {@link JsonApiResourceType.Builder#responseCache}. The
+     * size is read when the cache is first used.
+     *
+     * @return the maximum size of the cached documents
+     */
+    protected long getResponseCacheSize() {
+        return DEFAULT_RESPONSE_CACHE_SIZE;
+    }
+
     private Set<ConstraintViolation<InternalQuery>> validateParameters(InternalQuery params) {
         return Collections.unmodifiableSet(validator.validate(params));
     }
@@ -268,21 +298,60 @@ public abstract class JsonApiResource {
     void fetch(InternalContext context, EntityMeta meta, JsonApiHandler<?> handler) {
         InternalQuery params = new InternalQuery(this.model, meta, context.getResourceId(), context.getRelationshipName(), context.getUriInfo());
         context.setQuery(params);
+        final long cacheGeneration = getResponseCacheGeneration(meta);
 
         handler.onRequest(context);
 
         Set<ConstraintViolation<InternalQuery>> violations = validateParameters(params);
 
         if (violations.isEmpty()) {
-            JsonObject response = persistence.fetch(context, handler);
-
-            if (!context.hasResponse()) {
-                if (response != null) {
+            final boolean countOnly = persistence.isCountOnly(context);
+            Object version = countOnly ? null : getVersion(context);
+            EntityTag versionTag = version != null ? Responses.versionTag(version, getCanonicalQuery(context)) : null;
+            Date lastModified = Responses.lastModified(version);
+            // Cached documents have no entity to give to the handler's afterFind
+            String cacheKey = PersistenceController.overridesAfterFind(handler)
+                    ? null
+                    : getResponseCacheKey(countOnly ? "count" : "fetch", context, meta);
+            ResponseCache.CachedResponse cached = cacheKey != null ? getResponseCache().get(cacheKey) : null;
+
+            if (versionTag != null && Responses.notModified(context, cacheControl, versionTag, lastModified)) {
+                logger.finer(() -> "Resource not modified: " + versionTag);
+            } else if (cached != null) {
+                Responses.ok(context, cacheControl, cached);
+
+                if (countOnly) {
+                    Responses.totalCount(context, cached);
+                }
+            } else if (countOnly) {
+                JsonObject response = persistence.count(context);
+                ok(context, meta, cacheKey, cacheGeneration, response, null);
+                Responses.totalCount(context, response);
+            } else if (persistence.isStreamable(context)) {
+                StreamingOutput response = persistence.stream(context);
+
+                if (!context.hasResponse()) {
                     Responses.ok(context, cacheControl, response);
-                } else {
-                    Responses.notFound(context);
+
+                    if (versionTag != null) {
+                        context.getResponseBuilder().tag(versionTag);
+                    }
+                }
+            } else {
+                JsonObject response = persistence.fetch(context, handler);
+
+                if (!context.hasResponse()) {
+                    if (response != null) {
+                        ok(context, meta, cacheKey, cacheGeneration, response, versionTag);
+                    } else {
+                        Responses.notFound(context);
+                    }
                 }
             }
+
+            if (lastModified != null && context.hasResponse()) {
+                context.getResponseBuilder().lastModified(lastModified);
+            }
         } else {
             Responses.badRequest(context, violations);
         }
@@ -301,13 +370,7 @@ public abstract class JsonApiResource {
             EntityMeta meta = model.getEntityMeta(resourceType);
 
             if (isValidResourceAndMethodAllowed(context, meta, id)) {
-                JsonObject response = persistence.getRelationships(context);
-
-                if (response != null) {
-                    Responses.ok(context, cacheControl, response);
-                } else {
-                    Responses.notFound(context);
-                }
+                readRelationship(context, meta);
             }
         } catch (JsonApiErrorException e) {
             Responses.error(context, e);
@@ -319,6 +382,30 @@ public abstract class JsonApiResource {
         return context.getResponseBuilder().build();
     }
 
+    void readRelationship(InternalContext context, EntityMeta meta) {
+        InternalQuery params = new InternalQuery(this.model, meta, context.getResourceId(), context.getRelationshipName(), context.getUriInfo(), true);
+        context.setQuery(params);
+        final long cacheGeneration = getResponseCacheGeneration(meta);
+
+        Set<ConstraintViolation<InternalQuery>> violations = validateParameters(params);
+
+        if (!violations.isEmpty()) {
+            Responses.badRequest(context, violations);
+            return;
+        }
+
+        String cacheKey = getResponseCacheKey("relationships", context, meta);
+        ResponseCache.CachedResponse cached = cacheKey != null ? getResponseCache().get(cacheKey) : null;
+
+        if (cached != null) {
+            Responses.ok(context, cacheControl, cached);
+        } else if (persistence.isStreamableRelationship(context)) {
+            Responses.ok(context, cacheControl, persistence.streamRelationships(context));
+        } else {
+            ok(context, meta, cacheKey, cacheGeneration, persistence.getRelationships(context), null);
+        }
+    }
+
     @PATCH
     @Path("{resource-type}/{id}/relationships/{relationship-name}")
     public Response replaceRelationship(@PathParam("resource-type") String resourceType,
@@ -380,6 +467,8 @@ public abstract class JsonApiResource {
                 handler.onRequest(context);
 
                 if (persistence.delete(context, handler)) {
+                    invalidateCachedResponses(resourceType);
+
                     if (!context.hasResponse()) {
                         context.setResponseBuilder(Response.noContent());
                     }
@@ -415,6 +504,10 @@ public abstract class JsonApiResource {
                 if (violations.isEmpty()) {
                     JsonObject response = persist.apply(context, handler);
 
+                    if (response != null) {
+                        invalidateCachedResponses(context.getResourceType());
+                    }
+
                     if (!context.hasResponse()) {
                         if (response != null) {
                             responder.accept(response);
@@ -438,6 +531,173 @@ public abstract class JsonApiResource {
         return context.getResponseBuilder().build();
     }
 
+    void ok(InternalContext context,
+            EntityMeta meta,
+            String cacheKey,
+            long cacheGeneration,
+            JsonObject response,
+            EntityTag versionTag) {
+
+        Responses.SerializedEntity serialized = Responses.serialize(response);
+        EntityTag etag = versionTag != null ? versionTag : serialized.getEtag();
+
+        if (cacheKey != null) {
+            Responses.ok(context, cacheControl, getResponseCache().put(cacheKey,
+                                                                       serialized.getEntity(),
+                                                                       etag,
+                                                                       getResponseCacheTypes(context, meta),
+                                                                       meta.getResponseCacheTimeToLive(),
+                                                                       cacheGeneration));
+        } else {
+            Responses.ok(context, cacheControl, etag, serialized.getEntity());
+        }
+    }
+
+    /**
+     * Retrieve the version of the requested document without fetching it: the
+     * version of a single resource or the fingerprint of a collection.
+     *
+     * @return the version or null if the document is not versioned
+     */
+    Object getVersion(InternalContext context) {
+        if (persistence.isVersioned(context)) {
+            return persistence.getVersion(context);
+        }
+        if (persistence.isFingerprinted(context)) {
+            return persistence.getFingerprint(context);
+        }
+        return null;
+    }
+
+    /**
+     * @return the query parameters of the request in name order
+     */
+    String getCanonicalQuery(InternalContext context) {
+        return new TreeMap<>(context.getUriInfo().getQueryParameters()).toString();
+    }
+
+    ResponseCache getResponseCache() {
+        return ResponseCache.forKey(persistenceContext.getEntityManagerFactory(), getResponseCacheSize());
+    }
+
+    /**
+     * Obtain the generation of the response cache before the requested
+     * document is read, so that a document read before a concurrent
+     * modification of its resource types is not cached.
+     *
+     * @return the generation or zero if responses for the resource type are
+     *         not cached
+     */
+    long getResponseCacheGeneration(EntityMeta meta) {
+        return meta.getResponseCacheTimeToLive() > 0 ? getResponseCache().getGeneration() : 0;
+    }
+
+    /**
+     * Build the key of a cached response from the normalized request: the
+     * endpoint, resource type, id, relationship, the query parameters in
+     * name order, and the user. The user is always part of the key since
+     * handlers may restrict or alter the document per user.
+     *
+     * @return the key or null if responses for the resource type are not
+     *         cached
+     */
+    String getResponseCacheKey(String endpoint, InternalContext context, EntityMeta meta) {
+        if (meta.getResponseCacheTimeToLive() < 1) {
+            return null;
+        }
+
+        JsonArrayBuilder key = Json.createArrayBuilder()
+                                   .add(endpoint)
+                                   .add(String.valueOf(context.getUriInfo().getBaseUri()))
+                                   .add(meta.getResourceType())
+                                   .add(String.valueOf(context.getResourceId()))
+                                   .add(String.valueOf(context.getRelationshipName()))
+                                   .add(getCanonicalQuery(context));
+
+        var principal = security.getUserPrincipal();
+        key.add(principal != null ? principal.getName() : "");
+
+        return key.build().toString();
+    }
+
+    /**
+     * Resource types a response document is built from: the requested type,
+     * the types of included resources, and the types related to the resources
+     * in the document, whose modifications may change the relationships.
+     */
+    Set<String> getResponseCacheTypes(InternalContext context, EntityMeta meta) {
+        Set<String> types = new LinkedHashSet<>();
+        getResponseCacheMetas(context, meta).forEach(m -> types.add(m.getResourceType()));
+        return types;
+    }
+
+    Set<EntityMeta> getResponseCacheMetas(InternalContext context, EntityMeta meta) {
+        Set<EntityMeta> metas = new LinkedHashSet<>();
+        EntityMeta root = meta;
+        addWithRelated(metas, meta);
+
+        if (context.getRelationshipName() != null) {
+            root = model.getEntityMeta(meta.getRelatedEntityClass(context.getRelationshipName()));
+            addWithRelated(metas, root);
+        }
+
+        if (context.getQuery() != null) {
+            for (String include : context.getQuery().getInclude()) {
+                EntityMeta includeMeta = root;
+
+                for (String relationshipName : include.split("\\.")) {
+                    includeMeta = model.getEntityMeta(includeMeta.getRelatedEntityClass(relationshipName));
+                    addWithRelated(metas, includeMeta);
+                }
+            }
+        }
+
+        return metas;
+    }
+
+    void addWithRelated(Set<EntityMeta> metas, EntityMeta meta) {
+        if (meta != null) {
+            metas.add(meta);
+
+            for (String relationshipName : meta.getRelationshipNames()) {
+                EntityMeta relatedMeta = model.getEntityMeta(meta.getRelatedEntityClass(relationshipName));
+
+                if (relatedMeta != null) {
+                    metas.add(relatedMeta);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the cached responses built from resources of the given type,
+     * immediately and again once the current transaction completes, so that
+     * documents read concurrently before the commit are not kept.
+     */
+    void invalidateCachedResponses(String resourceType) {
+        ResponseCache cache = ResponseCache.getIfPresent(persistenceContext.getEntityManagerFactory());
+
+        if (cache == null) {
+            return;
+        }
+
+        cache.invalidate(resourceType);
+
+        if (txRegistry != null && txRegistry.getTransactionKey() != null) {
+            txRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                    // Nothing to do before the commit
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(resourceType);
+                }
+            });
+        }
+    }
+
     boolean isValidId(EntityMeta meta, String id) {
         try {
             return meta != null && meta.readId(id) != null;
@@ -451,6 +711,11 @@ public abstract class JsonApiResource {
     JsonApiHandler<?> findHandler(String resourceType, String httpMethod) {
         List<JsonApiHandler<?>> available = new ArrayList<>(2);
 
+        if (HttpMethod.HEAD.equals(httpMethod)) {
+            // Handlers restricting GET requests also apply to HEAD requests
+            httpMethod = HttpMethod.GET;
+        }
+
         for (JsonApiHandler<?> handler : handlers) {
             if (handler.isHandler(resourceType, httpMethod)) {
                 available.add(handler);
@@ -1,6 +1,8 @@
 package io.xlate.jsonapi.rvp;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -22,6 +24,7 @@ public class JsonApiResourceType<T> {
     private final Class<T> klass;
     private final Set<Class<?>> methods;
     private final String exposedIdAttribute;
+    private final String lastModifiedAttribute;
 
     private final Set<String> attributes;
     private final Map<String, Function<String, Object>> readers;
@@ -32,6 +35,100 @@ public class JsonApiResourceType<T> {
     private final Function<String, Object> idReader;
     private final String principalNamePath;
 
+    private final TotalResults totalResults;
+    private final int totalResultsLimit;
+    private final RelationshipCounts relationshipCounts;
+    private final Set<String> countedRelationships;
+    private final Map<String, Set<FilterOperator>> filterOperators;
+    private final boolean readOnly;
+    private final boolean cacheable;
+    private final boolean referencedById;
+    private final long responseCacheTimeToLive;
+    private final int streamingFetchSize;
+
+    private final int maxPageSize;
+    private final int defaultPageSize;
+    private final int maxIncludes;
+    private final int maxFilterDepth;
+    private final int maxSortKeys;
+    private final int queryTimeout;
+
+    /**
+     * Strategy used to compute `meta.totalResults` for paginated collection
+     * requests. Clients may override the configured strategy per request using
+     * the `page[total]` query parameter.
+     */
+    public enum TotalResults {
+        /**
+         * The total is not computed.
+         */
+        NONE,
+        /**
+         * The total is computed with an exact count of the matching resources.
+         */
+        EXACT,
+        /**
+         * The matching resources are counted up to a limit. When the limit is
+         * exceeded, the limit is returned as the total together with
+         * `meta.totalResultsCapped`.
+         */
+        ESTIMATE;
+    }
+
+    /**
+     * Strategy used to count the related resources of relationships that are
+     * not included in a response.
+     */
+    public enum RelationshipCounts {
+        /**
+         * Each relationship is LEFT JOINed to the primary resource and counted
+         * with the results grouped by the primary resource.
+         */
+        JOIN,
+        /**
+         * Each relationship is counted with a correlated scalar subquery,
+         * avoiding both the joins and the grouping of the primary resources.
+         */
+        SUBQUERY;
+    }
+
+    /**
+     * Comparison applied by a filter, given in the request as
+     * `filter[path][operator]=value`. A filter without an operator compares
+     * for equality.
+     */
+    public enum FilterOperator {
+        /**
+         * Equal to the value, or null/not null for the values `null` and
+         * `!null`.
+         */
+        EQ,
+        /**
+         * Less than the value.
+         */
+        LT,
+        /**
+         * Less than or equal to the value.
+         */
+        LTE,
+        /**
+         * Greater than the value.
+         */
+        GT,
+        /**
+         * Greater than or equal to the value.
+         */
+        GTE,
+        /**
+         * Equal to any of a comma-separated list of values.
+         */
+        IN,
+        /**
+         * Starts with the value, supported for string attributes only.
+         */
+        PREFIX;
+    }
+
     public static <T> Builder<T> define(String name, Class<T> klass) {
         return new Builder<>(name, klass);
     }
@@ -47,8 +144,25 @@ public class JsonApiResourceType<T> {
         private Set<String> relationships;
         private Map<String, Set<String>> uniqueTuples = new HashMap<>(3);
         private String exposedIdAttribute;
+        private String lastModifiedAttribute;
         private Function<String, Object> idReader;
         private String principalNamePath;
+        private TotalResults totalResults = TotalResults.EXACT;
+        private int totalResultsLimit = 1000;
+        private RelationshipCounts relationshipCounts = RelationshipCounts.JOIN;
+        private Set<String> countedRelationships;
+        private Map<String, Set<FilterOperator>> filterOperators = new HashMap<>(5);
+        private boolean readOnly = true;
+        private boolean cacheable = false;
+        private boolean referencedById = false;
+        private long responseCacheTimeToLive = 0;
+        private int streamingFetchSize = 0;
+        private int maxPageSize = 0;
+        private int defaultPageSize = 0;
+        private int maxIncludes = 0;
+        private int maxFilterDepth = 0;
+        private int maxSortKeys = 0;
+        private int queryTimeout = 0;
 
         private Builder(String name, Class<T> klass) {
             this.name = name;
@@ -56,16 +170,7 @@ public class JsonApiResourceType<T> {
         }
 
         public JsonApiResourceType<T> build() {
-            return new JsonApiResourceType<>(name,
-                                             klass,
-                                             methods,
-                                             attributes,
-                                             readers,
-                                             relationships,
-                                             uniqueTuples,
-                                             exposedIdAttribute,
-                                             idReader,
-                                             principalNamePath);
+            return new JsonApiResourceType<>(this);
         }
 
         public Builder<T> methods(Class<?>... methods) {
@@ -111,56 +216,288 @@ public class JsonApiResourceType<T> {
             return this;
         }
 
+        /**
+         * Set the attribute used in place of the version to tag the resources.
+         *
+         * @param attributeName name of the last-modified attribute
+         * @return the builder
+         */
+        public Builder<T> lastModifiedAttribute(String attributeName) {
+            this.lastModifiedAttribute = attributeName;
+            return this;
+        }
+
         public Builder<T> principalNamePath(String path) {
             this.principalNamePath = path;
             return this;
         }
+
+        /**
+         * Set the default strategy used to compute `meta.totalResults`,
+         * {@link TotalResults#EXACT EXACT} by default.
+         *
+         * @param totalResults strategy used to compute the total
+         * @return the builder
+         */
+        public Builder<T> totalResults(TotalResults totalResults) {
+            this.totalResults = totalResults;
+            return this;
+        }
+
+        /**
+         * Set the number of resources counted for an
+         * {@link TotalResults#ESTIMATE ESTIMATE} total, 1000 by default.
+         *
+         * @param limit maximum number of resources counted
+         * @return the builder
+         */
+        public Builder<T> totalResultsLimit(int limit) {
+            if (limit < 1) {
+                throw new IllegalArgumentException("Total results limit must be positive: " + limit);
+            }
+            this.totalResultsLimit = limit;
+            return this;
+        }
+
+        /**
+         * Set the strategy used to count the relationships not included,
+         * {@link RelationshipCounts#JOIN JOIN} by default.
+         *
+         * @param relationshipCounts strategy used to count relationships
+         * @return the builder
+         */
+        public Builder<T> relationshipCounts(RelationshipCounts relationshipCounts) {
+            this.relationshipCounts = relationshipCounts;
+            return this;
+        }
+
+        /**
+         * Set the relationships counted without a `count` parameter, all by default.
+         *
+         * @param relationships names of the relationships to count, none to
+         *        disable counting by default
+         * @return the builder
+         */
+        public Builder<T> countedRelationships(String... relationships) {
+            this.countedRelationships = new HashSet<>(Arrays.asList(relationships));
+            return this;
+        }
+
+        /**
+         * Restrict the filter operators of an attribute, all by default.
+         *
+         * @param attributeName name of the attribute, `id` for the exposed id
+         * @param operators operators supported in addition to equality
+         * @return the builder
+         */
+        public Builder<T> filterOperators(String attributeName, FilterOperator... operators) {
+            Set<FilterOperator> supported = EnumSet.of(FilterOperator.EQ);
+            supported.addAll(Arrays.asList(operators));
+            this.filterOperators.put(attributeName, supported);
+            return this;
+        }
+
+        /**
+         * Set whether GET requests retrieve the resources read-only, true by default.
+         *
+         * @param readOnly true to retrieve resources in read-only mode
+         * @return the builder
+         */
+        public Builder<T> readOnly(boolean readOnly) {
+            this.readOnly = readOnly;
+            return this;
+        }
+
+        /**
+         * Set whether the caches of the persistence provider are used, false by default.
+         *
+         * @param cacheable true to use the caches of the persistence provider
+         * @return the builder
+         */
+        public Builder<T> cacheable(boolean cacheable) {
+            this.cacheable = cacheable;
+            return this;
+        }
+
+        /**
+         * Set whether related resources of the type are written by reference, false by default.
+         *
+         * @param referencedById true to use references rather than queries
+         * @return the builder
+         */
+        public Builder<T> referencedById(boolean referencedById) {
+            this.referencedById = referencedById;
+            return this;
+        }
+
+        /**
+         * Cache GET response documents in memory, disabled by default. Changes made
+         * outside of the API are not seen until the time to live elapses.
+         *
+         * @param timeToLive time a cached document may be used, zero to
+         *        disable the cache
+         * @return the builder
+         */
+        public Builder<T> responseCache(Duration timeToLive) {
+            if (timeToLive.isNegative()) {
+                throw new IllegalArgumentException("Response cache time to live must not be negative: " + timeToLive);
+            }
+            this.responseCacheTimeToLive = timeToLive.toMillis();
+            return this;
+        }
+
+        /**
+         * Stream collections read outside of a transaction to the response, disabled
+         * by default.
+         *
+         * @param fetchSize number of rows fetched from the database at a time,
+         *        0 to disable streaming
+         * @return the builder
+         */
+        public Builder<T> streaming(int fetchSize) {
+            if (fetchSize < 0) {
+                throw new IllegalArgumentException("Streaming fetch size must not be negative: " + fetchSize);
+            }
+            this.streamingFetchSize = fetchSize;
+            return this;
+        }
+
+        /**
+         * Set the largest page size a client may request, unlimited by default.
+         *
+         * @param maxPageSize maximum number of resources per page, 0 for no
+         *        limit
+         * @return the builder
+         */
+        public Builder<T> maxPageSize(int maxPageSize) {
+            this.maxPageSize = requireNonNegative("Maximum page size", maxPageSize);
+            return this;
+        }
+
+        /**
+         * Set the page size used when a client does not give one, unpaged by default.
+         *
+         * @param defaultPageSize number of resources per page, 0 for no
+         *        default
+         * @return the builder
+         */
+        public Builder<T> defaultPageSize(int defaultPageSize) {
+            this.defaultPageSize = requireNonNegative("Default page size", defaultPageSize);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of `include` paths, unlimited by default.
+         *
+         * @param maxIncludes maximum number of include paths, 0 for no limit
+         * @return the builder
+         */
+        public Builder<T> maxIncludes(int maxIncludes) {
+            this.maxIncludes = requireNonNegative("Maximum includes", maxIncludes);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of relationships in a filter path, unlimited by default.
+         *
+         * @param maxFilterDepth maximum number of relationships in a filter
+         *        path, 0 for no limit
+         * @return the builder
+         */
+        public Builder<T> maxFilterDepth(int maxFilterDepth) {
+            this.maxFilterDepth = requireNonNegative("Maximum filter depth", maxFilterDepth);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of `sort` keys, unlimited by default.
+         *
+         * @param maxSortKeys maximum number of sort keys, 0 for no limit
+         * @return the builder
+         */
+        public Builder<T> maxSortKeys(int maxSortKeys) {
+            this.maxSortKeys = requireNonNegative("Maximum sort keys", maxSortKeys);
+            return this;
+        }
+
+        /**
+         * Set the `jakarta.persistence.query.timeout` of the queries, none by default.
+         *
+         * @param milliseconds query timeout in milliseconds, 0 for none
+         * @return the builder
+         */
+        public Builder<T> queryTimeout(int milliseconds) {
+            this.queryTimeout = requireNonNegative("Query timeout", milliseconds);
+            return this;
+        }
+
+        static int requireNonNegative(String name, int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " must not be negative: " + value);
+            }
+            return value;
+        }
     }
 
-    @SuppressWarnings("java:S107")
-    private JsonApiResourceType(String name,
-            Class<T> klass,
-            Set<Class<?>> methods,
-            Set<String> attributes,
-            Map<String, Function<String, Object>> readers,
-            Set<String> relationships,
-            Map<String, Set<String>> uniqueTuples,
-            String exposedIdAttribute,
-            Function<String, Object> idReader,
-            String principalNamePath) {
+    private JsonApiResourceType(Builder<T> builder) {
         super();
-        this.name = name;
-        this.klass = klass;
+        this.name = builder.name;
+        this.klass = builder.klass;
 
-        if (methods.isEmpty()) {
+        if (builder.methods.isEmpty()) {
             this.methods = ALL_METHODS;
         } else {
-            this.methods = Set.copyOf(methods);
+            this.methods = Set.copyOf(builder.methods);
         }
 
-        if (attributes != null) {
-            this.attributes = Set.copyOf(attributes);
+        if (builder.attributes != null) {
+            this.attributes = Set.copyOf(builder.attributes);
         } else {
             this.attributes = Set.of(); // Empty
         }
 
-        this.readers = Map.copyOf(readers);
+        this.readers = Map.copyOf(builder.readers);
 
-        if (relationships != null) {
-            this.relationships = Set.copyOf(relationships);
+        if (builder.relationships != null) {
+            this.relationships = Set.copyOf(builder.relationships);
         } else {
             this.relationships = Set.of(); // Empty
         }
 
-        this.uniqueTuples = Map.copyOf(uniqueTuples);
-        this.exposedIdAttribute = exposedIdAttribute;
-        this.principalNamePath = principalNamePath;
+        this.uniqueTuples = Map.copyOf(builder.uniqueTuples);
+        this.exposedIdAttribute = builder.exposedIdAttribute;
+        this.lastModifiedAttribute = builder.lastModifiedAttribute;
+        this.principalNamePath = builder.principalNamePath;
 
-        if (idReader != null) {
-            this.idReader = idReader;
+        if (builder.idReader != null) {
+            this.idReader = builder.idReader;
         } else {
             this.idReader = id -> id;
         }
+
+        this.totalResults = builder.totalResults;
+        this.totalResultsLimit = builder.totalResultsLimit;
+        this.relationshipCounts = builder.relationshipCounts;
+
+        if (builder.countedRelationships != null) {
+            this.countedRelationships = Set.copyOf(builder.countedRelationships);
+        } else {
+            this.countedRelationships = null; // All
+        }
+
+        this.filterOperators = Map.copyOf(builder.filterOperators);
+        this.readOnly = builder.readOnly;
+        this.cacheable = builder.cacheable;
+        this.referencedById = builder.referencedById;
+        this.responseCacheTimeToLive = builder.responseCacheTimeToLive;
+        this.streamingFetchSize = builder.streamingFetchSize;
+
+        this.maxPageSize = builder.maxPageSize;
+        this.defaultPageSize = builder.defaultPageSize;
+        this.maxIncludes = builder.maxIncludes;
+        this.maxFilterDepth = builder.maxFilterDepth;
+        this.maxSortKeys = builder.maxSortKeys;
+        this.queryTimeout = builder.queryTimeout;
     }
 
     @Override
@@ -220,6 +557,10 @@ public class JsonApiResourceType<T> {
         return exposedIdAttribute;
     }
 
+    public String getLastModifiedAttribute() {
+        return lastModifiedAttribute;
+    }
+
     public Function<String, Object> getIdReader() {
         return idReader;
     }
@@ -227,4 +568,104 @@ public class JsonApiResourceType<T> {
     public String getPrincipalNamePath() {
         return principalNamePath;
     }
+
+    public TotalResults getTotalResults() {
+        return totalResults;
+    }
+
+    public int getTotalResultsLimit() {
+        return totalResultsLimit;
+    }
+
+    public RelationshipCounts getRelationshipCounts() {
+        return relationshipCounts;
+    }
+
+    /**
+     * @return the names of the relationships counted by default, or null when
+     *         all relationships are counted
+     */
+    public Set<String> getCountedRelationships() {
+        return countedRelationships;
+    }
+
+    /**
+     * @return the filter operators supported by attributes with restricted
+     *         operators, keyed by attribute name
+     */
+    public Map<String, Set<FilterOperator>> getFilterOperators() {
+        return filterOperators;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    public boolean isReferencedById() {
+        return referencedById;
+    }
+
+    /**
+     * @return the number of milliseconds a cached response document may be
+     *         used, or 0 when responses are not cached
+     */
+    public long getResponseCacheTimeToLive() {
+        return responseCacheTimeToLive;
+    }
+
+    /**
+     * @return the JDBC fetch size used to stream collections, or 0 when
+     *         collections are not streamed
+     */
+    public int getStreamingFetchSize() {
+        return streamingFetchSize;
+    }
+
+    /**
+     * @return the maximum number of resources per page, 0 when unlimited
+     */
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    /**
+     * @return the number of resources per page when a client does not request
+     *         pagination, 0 when all resources are returned
+     */
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    /**
+     * @return the maximum number of include paths, 0 when unlimited
+     */
+    public int getMaxIncludes() {
+        return maxIncludes;
+    }
+
+    /**
+     * @return the maximum number of relationships in a filter path, 0 when
+     *         unlimited
+     */
+    public int getMaxFilterDepth() {
+        return maxFilterDepth;
+    }
+
+    /**
+     * @return the maximum number of sort keys, 0 when unlimited
+     */
+    public int getMaxSortKeys() {
+        return maxSortKeys;
+    }
+
+    /**
+     * @return the query timeout in milliseconds, 0 when none is set
+     */
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
 }
@@ -1,6 +1,7 @@
 package io.xlate.jsonapi.rvp.internal;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -18,6 +19,10 @@ public class JsonApiHandlerChain implements JsonApiHandler<Object> {
         chain.forEach(h -> this.chain.add((JsonApiHandler<Object>) h));
     }
 
+    public List<JsonApiHandler<Object>> getChain() {
+        return Collections.unmodifiableList(chain);
+    }
+
     @Override
     public boolean isHandler(String resourceType, String httpMethod) {
         return false;
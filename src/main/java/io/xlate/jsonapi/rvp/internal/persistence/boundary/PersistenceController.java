@@ -2,31 +2,41 @@ package io.xlate.jsonapi.rvp.internal.persistence.boundary;
 
 import static java.util.function.Predicate.not;
 
-import java.lang.reflect.AccessibleObject;
 import java.security.Principal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import jakarta.json.Json;
 import jakarta.json.JsonArrayBuilder;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonString;
 import jakarta.json.JsonValue;
+import jakarta.json.JsonValue.ValueType;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.persistence.Cache;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.CacheStoreMode;
 import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.FlushModeType;
-import jakarta.persistence.ManyToMany;
 import jakarta.persistence.NoResultException;
-import jakarta.persistence.OneToMany;
-import jakarta.persistence.OneToOne;
 import jakarta.persistence.PersistenceException;
 import jakarta.persistence.Query;
 import jakarta.persistence.Tuple;
@@ -37,25 +47,35 @@ import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.From;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Nulls;
 import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.criteria.Subquery;
 import jakarta.persistence.metamodel.Attribute;
-import jakarta.persistence.metamodel.Bindable;
 import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriInfo;
 
+import io.xlate.jsonapi.rvp.JsonApiContext;
 import io.xlate.jsonapi.rvp.JsonApiContext.Attributes;
 import io.xlate.jsonapi.rvp.JsonApiHandler;
+import io.xlate.jsonapi.rvp.JsonApiResourceType.FilterOperator;
+import io.xlate.jsonapi.rvp.JsonApiResourceType.RelationshipCounts;
+import io.xlate.jsonapi.rvp.JsonApiResourceType.TotalResults;
 import io.xlate.jsonapi.rvp.internal.JsonApiErrorException;
+import io.xlate.jsonapi.rvp.internal.JsonApiHandlerChain;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.Entity;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMeta;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMetamodel;
+import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityRelationship;
 import io.xlate.jsonapi.rvp.internal.rs.boundary.ResourceObjectReader;
 import io.xlate.jsonapi.rvp.internal.rs.boundary.ResourceObjectWriter;
 import io.xlate.jsonapi.rvp.internal.rs.entity.InternalContext;
@@ -65,6 +85,43 @@ import io.xlate.jsonapi.rvp.internal.validation.boundary.TransactionalValidator;
 public class PersistenceController {
 
     private static final String ALIAS_PRE = "io_xlate_jsonapi_rvp_";
+    private static final String CURSOR_ID_KEY = "id";
+    private static final String ID_ALIAS = ALIAS_PRE + "id";
+    private static final String EXPOSED_ID_ALIAS = ALIAS_PRE + "exposed_id";
+    private static final String INCLUDE_PRE = "include_";
+    private static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+    private static final String QUERY_TIMEOUT_HINT = "jakarta.persistence.query.timeout";
+
+    /**
+     * Allows Hibernate to reuse the plan of a criteria query for later queries
+     * of the same shape, its query plan cache is otherwise only used for
+     * queries given as strings. Plans of queries selecting tuples are not
+     * reused by the provider. Other providers ignore the hint.
+     */
+    private static final String PLAN_CACHEABLE_HINT = "hibernate.query.plan.cacheable";
+    private static final Pattern LIKE_SPECIAL = Pattern.compile("[\\\\%_]");
+
+    /**
+     * Sizes of the IN-lists used to retrieve included resources. Keys are
+     * retrieved in chunks of the largest size and each chunk is padded to the
+     * nearest size, limiting the number of distinct statements.
+     */
+    private static final int[] IN_LIST_SIZES = { 16, 64, 256 };
+
+    /**
+     * Hints given to the queries of resource types retrieved in read-only mode.
+     * Providers ignore the hints they do not support.
+     */
+    private static final Map<String, Object> READ_ONLY_HINTS = Map.of("org.hibernate.readOnly", Boolean.TRUE,
+                                                                      "jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.USE);
+
+    /**
+     * Hints given to the queries of cacheable resource types, allowing the
+     * provider to use the shared cache and the query cache.
+     */
+    private static final Map<String, Object> CACHE_HINTS = Map.of("jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.USE,
+                                                                  "jakarta.persistence.cache.storeMode", CacheStoreMode.USE,
+                                                                  "org.hibernate.cacheable", Boolean.TRUE);
 
     private final EntityManager em;
     private final EntityMetamodel model;
@@ -80,34 +137,51 @@ public class PersistenceController {
         this.writer = new ResourceObjectWriter(model);
     }
 
-    @SuppressWarnings({ "rawtypes", "java:S3740" })
     static class FetchQueries {
         final TypedQuery<Tuple> dataQuery;
+        final Set<String> attributes;
         final Set<String> counted;
-        final TypedQuery<Long> countQuery;
-        final Join relatedJoin;
-
-        public FetchQueries(TypedQuery<Tuple> dataQuery, Set<String> counted, TypedQuery<Long> countQuery, Join relatedJoin) {
+        final Set<String> joinedIncludes;
+        final TypedQuery<?> countQuery;
+        final Integer countLimit;
+
+        public FetchQueries(TypedQuery<Tuple> dataQuery,
+                Set<String> attributes,
+                Set<String> counted,
+                Set<String> joinedIncludes,
+                TypedQuery<?> countQuery,
+                Integer countLimit) {
             super();
             this.dataQuery = dataQuery;
+            this.attributes = attributes;
             this.counted = counted;
+            this.joinedIncludes = joinedIncludes;
             this.countQuery = countQuery;
-            this.relatedJoin = relatedJoin;
+            this.countLimit = countLimit;
         }
     }
 
-    List<Order> getOrderBy(CriteriaBuilder builder, Root<Object> root, InternalQuery params) {
-        List<String> sortKeys = params.getSort();
+    List<Order> getOrderBy(CriteriaBuilder builder, Root<Object> root, EntityMeta meta, InternalQuery params) {
+        final boolean cursorPaging = params.isCursorPaging();
+        return getOrderBy(builder, root, meta, cursorPaging ? getCursorKeys(params) : params.getSort(), cursorPaging);
+    }
 
+    List<Order> getOrderBy(CriteriaBuilder builder, From<Object, Object> root, EntityMeta meta, List<String> sortKeys, boolean cursorPaging) {
         if (!sortKeys.isEmpty()) {
-            List<Order> orderBy = new ArrayList<>(params.getSort().size());
+            List<Order> orderBy = new ArrayList<>(sortKeys.size());
 
-            for (String sortKey : params.getSort()) {
+            for (String sortKey : sortKeys) {
                 boolean descending = sortKey.startsWith("-");
                 String attribute = sortKey.substring(descending ? 1 : 0);
-                Path<Object> path = root.get(attribute);
-
-                if (descending) {
+                Path<?> path = getSortPath(root, meta, attribute);
+
+                if (cursorPaging) {
+                    /*
+                     * Null values must sort consistently with the seek predicate
+                     * regardless of the database's default, i.e. as the lowest value.
+                     */
+                    orderBy.add(descending ? builder.desc(path, Nulls.LAST) : builder.asc(path, Nulls.FIRST));
+                } else if (descending) {
                     orderBy.add(builder.desc(path));
                 } else {
                     orderBy.add(builder.asc(path));
@@ -118,38 +192,438 @@ public class PersistenceController {
         return Collections.emptyList();
     }
 
-    public JsonObject getRelationships(InternalContext context) {
+    /**
+     * The keys of a cursor are the sort keys requested by the client followed
+     * by the exposed identifier which guarantees a unique position for every
+     * resource.
+     */
+    List<String> getCursorKeys(InternalQuery params) {
+        List<String> keys = new ArrayList<>(params.getSort().size() + 1);
+        keys.addAll(params.getSort());
+        keys.add(CURSOR_ID_KEY);
+        return keys;
+    }
 
-        String resourceType = context.getResourceType();
-        EntityMeta meta = model.getEntityMeta(resourceType);
-        Class<Object> entityClass = meta.getEntityClass();
+    /**
+     * Resolve the path of a sort key. Attributes of related resources, e.g.
+     * `author.name`, are reached with left joins shared with the filters so
+     * that resources without the relationship are not excluded.
+     */
+    Path<?> getSortPath(From<Object, Object> root, EntityMeta meta, String attribute) {
+        if (CURSOR_ID_KEY.equals(attribute)) {
+            return root.get(meta.getExposedIdAttribute());
+        }
+
+        String[] elements = attribute.split("\\.");
+        From<?, ?> namePath = root;
+
+        for (int i = 0; i + 1 < elements.length; i++) {
+            namePath = join(namePath, "+" + elements[i]);
+        }
 
+        return namePath.get(elements[elements.length - 1]);
+    }
+
+    /**
+     * @return the alias of an attribute selected with the primary data, the
+     *         name of the attribute unless it is a sort key of a related
+     *         resource
+     */
+    static String getAttributeAlias(String attribute) {
+        return attribute.indexOf('.') < 0 ? attribute : ALIAS_PRE + "sort_" + attribute.replace('.', '_');
+    }
+
+    /**
+     * Build the seek predicate selecting the resources positioned after the
+     * cursor given by the client, e.g. for `sort=a,-b` the predicate is
+     * <code>(a &gt; :a) OR (a = :a AND b &lt; :b) OR (a = :a AND b = :b AND id &gt; :id)</code>.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes", "java:S3740" })
+    Predicate buildSeekPredicate(CriteriaBuilder builder,
+                                 From<Object, Object> root,
+                                 EntityMeta meta,
+                                 InternalQuery params,
+                                 QueryParameters parameters) {
+        final JsonObject cursor = params.getCursor();
+        final List<Predicate> alternatives = new ArrayList<>();
+        final List<Predicate> equalities = new ArrayList<>();
+        final List<String> cursorKeys = getCursorKeys(params);
+
+        for (int i = 0; i < cursorKeys.size(); i++) {
+            String sortKey = cursorKeys.get(i);
+            boolean descending = sortKey.startsWith("-");
+            String attribute = sortKey.substring(descending ? 1 : 0);
+            Expression path = getSortPath(root, meta, attribute);
+            Object rawValue = readCursorValue(meta, attribute, cursor.get(attribute));
+            Expression value = rawValue != null ? parameters.bind("cursor" + i, path.getJavaType(), rawValue) : null;
+            final Predicate after;
+
+            if (descending) {
+                after = value != null ? builder.or(builder.lessThan(path, value), builder.isNull(path)) : null;
+            } else {
+                after = value != null ? builder.greaterThan(path, value) : builder.isNotNull(path);
+            }
+
+            if (after != null) {
+                List<Predicate> alternative = new ArrayList<>(equalities);
+                alternative.add(after);
+                alternatives.add(builder.and(alternative.toArray(new Predicate[alternative.size()])));
+            }
+
+            equalities.add(value != null ? builder.equal(path, value) : builder.isNull(path));
+        }
+
+        return builder.or(alternatives.toArray(new Predicate[alternatives.size()]));
+    }
+
+    Object readCursorValue(EntityMeta meta, String attribute, JsonValue value) {
+        if (value.getValueType() == ValueType.NULL) {
+            return null;
+        }
+
+        if (CURSOR_ID_KEY.equals(attribute)) {
+            if (value.getValueType() == ValueType.STRING) {
+                return meta.readId(((JsonString) value).getString());
+            }
+            return reader.readValue(meta, meta.getExposedIdAttribute().getName(), value);
+        }
+
+        int separator = attribute.lastIndexOf('.');
+
+        if (separator > 0) {
+            for (String relationshipName : attribute.substring(0, separator).split("\\.")) {
+                meta = model.getEntityMeta(meta.getRelatedEntityClass(relationshipName));
+            }
+            attribute = attribute.substring(separator + 1);
+        }
+
+        return reader.readValue(meta, attribute, value);
+    }
+
+    /**
+     * Determine whether the document requested holds nothing but a single
+     * resource with a version attribute, i.e. whether the version identifies
+     * the document.
+     */
+    public boolean isVersioned(InternalContext context) {
+        final EntityMeta meta = model.getEntityMeta(context.getResourceType());
+
+        return context.getResourceId() != null
+                && context.getRelationshipName() == null
+                && isVersionedDocument(meta, context.getQuery());
+    }
+
+    /**
+     * Determine whether the document requested holds nothing but a collection
+     * of resources with a version attribute, i.e. whether the
+     * {@link #getFingerprint(InternalContext) fingerprint} of the resources
+     * identifies the document.
+     */
+    public boolean isFingerprinted(InternalContext context) {
+        final InternalQuery params = context.getQuery();
+        final EntityMeta meta = getFetchMeta(context);
+
+        return !isSingular(getFetchRelatedMeta(context), context.getRelationshipName(), params)
+                && isVersionedDocument(meta, params);
+    }
+
+    /**
+     * Included resources and relationship counts may change without the
+     * version of the primary resources changing.
+     */
+    boolean isVersionedDocument(EntityMeta meta, InternalQuery params) {
+        return meta.getVersionAttribute() != null
+                && params.getInclude().isEmpty()
+                && meta.getRelationshipNames().stream().noneMatch(name -> isCounted(meta, params, name));
+    }
+
+    /**
+     * Retrieve only the value of the version attribute of the requested
+     * resource.
+     *
+     * @return the version or null when the resource is not found or has no
+     *         version
+     */
+    public Object getVersion(InternalContext context) {
+        final EntityMeta meta = model.getEntityMeta(context.getResourceType());
         final CriteriaBuilder builder = em.getCriteriaBuilder();
         final CriteriaQuery<Object> query = builder.createQuery();
+        final Root<Object> root = query.from(meta.getEntityClass());
+
+        query.select(root.get(meta.getVersionAttribute()));
+        QueryParameters parameters = new QueryParameters(builder);
+        List<Predicate> predicates = buildPredicates(builder,
+                                                     root,
+                                                     context.getSecurity().getUserPrincipal(),
+                                                     meta,
+                                                     context.getResourceId(),
+                                                     parameters);
+        query.where(predicates.toArray(new Predicate[predicates.size()]));
 
-        Root<Object> root = query.from(entityClass);
-        String relationshipName = context.getRelationshipName();
-        Join<Object, Object> join = root.join(relationshipName);
-        EntityMeta joinMeta = model.getEntityMeta(join.getModel().getBindableJavaType());
+        List<Object> versions = readOnly(meta, parameters.applyTo(em.createQuery(query))).getResultList();
+        return versions.isEmpty() ? null : versions.get(0);
+    }
 
-        final UriInfo uriInfo = context.getUriInfo();
-        final String id = context.getResourceId();
+    /**
+     * Compute the fingerprint of the collection of resources requested: the
+     * number of resources matching the request's predicates, the latest of
+     * their versions and, when numeric, the sums of their versions and
+     * identifiers. The fingerprint changes when a matching resource is added,
+     * removed, or modified.
+     *
+     * @return the fingerprint of the collection
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes", "java:S3740" })
+    public String getFingerprint(InternalContext context) {
+        final EntityMeta meta = getFetchMeta(context);
+        final EntityMeta relatedMeta = getFetchRelatedMeta(context);
+        final CriteriaBuilder builder = em.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        final Root<Object> root = query.from(meta.getEntityClass());
+        root.alias("root");
 
-        query.select(join.get(joinMeta.getExposedIdAttribute()));
-        List<Predicate> predicates = buildPredicates(builder, root, context.getSecurity().getUserPrincipal(), meta, id);
-        query.where(predicates.toArray(new Predicate[predicates.size()]));
+        final QueryParameters parameters = new QueryParameters(builder);
+        final Join<Object, Object> relatedJoin = joinRelated(root, relatedMeta, context.getRelationshipName());
+        final List<Predicate> predicates = buildFetchPredicates(context, builder, root, meta, relatedMeta, relatedJoin, parameters);
+
+        if (!predicates.isEmpty()) {
+            query.where(predicates.toArray(new Predicate[predicates.size()]));
+        }
+
+        final Expression version = root.get(meta.getVersionAttribute());
+        final Expression id = root.get(meta.getIdAttribute());
+        final List<Selection<?>> aggregates = new ArrayList<>(4);
+
+        aggregates.add(builder.countDistinct(root));
+        aggregates.add(builder.greatest(version));
+
+        if (isNumeric(version)) {
+            aggregates.add(builder.sum(version));
+        }
+
+        if (isNumeric(id)) {
+            // Detects a resource replaced by another with the same version
+            aggregates.add(builder.sum(id));
+        }
+
+        query.select(builder.tuple(aggregates));
 
-        TypedQuery<Object> typedQuery = em.createQuery(query);
+        final Tuple result = readOnly(meta, parameters.applyTo(em.createQuery(query)))
+                .getSingleResult();
+
+        return Stream.of(result.toArray()).map(String::valueOf).collect(Collectors.joining(":"));
+    }
+
+    static boolean isNumeric(Expression<?> expression) {
+        return Number.class.isAssignableFrom(EntityMeta.wrap(expression.getJavaType()));
+    }
+
+    /**
+     * Retrieve the linkage of a relationship, ordered by the requested sort
+     * keys of the related resources followed by their identifiers. When a page
+     * is requested, `meta.count` gives the number of related resources and
+     * `links.next` the following page, if any.
+     *
+     * @param context the request context
+     * @return the relationship document
+     */
+    public JsonObject getRelationships(InternalContext context) {
+        final InternalQuery params = context.getQuery();
+        final EntityMeta meta = model.getEntityMeta(context.getResourceType());
+        final EntityMeta joinMeta = getFetchMeta(context);
+        final List<String> relatedIds = new ArrayList<>();
+        final String nextCursor;
 
-        return writer.toJsonApiRelationships(uriInfo,
-                                             resourceType,
-                                             id,
-                                             relationshipName,
+        try (Stream<Tuple> results = buildRelationshipQuery(context, meta, joinMeta).getResultStream()) {
+            nextCursor = readLinkage(results.iterator(), params, relatedIds::add);
+        }
+
+        return writer.toJsonApiRelationships(params.getUriInfo(),
+                                             meta.getResourceType(),
+                                             context.getResourceId(),
+                                             context.getRelationshipName(),
                                              joinMeta.getResourceType(),
-                                             typedQuery.getResultList()
-                                                       .stream()
-                                                       .map(String::valueOf)
-                                                       .collect(Collectors.toSet()));
+                                             relatedIds,
+                                             getRelationshipMeta(context, meta),
+                                             getRelationshipNextLink(params, nextCursor));
+    }
+
+    /**
+     * Determine whether the linkage of a relationship may be streamed, i.e.
+     * whether streaming is enabled for the related resource type and the
+     * request is not part of a transaction.
+     */
+    public boolean isStreamableRelationship(InternalContext context) {
+        return getFetchMeta(context).getStreamingFetchSize() > 0 && !em.isJoinedToTransaction();
+    }
+
+    /**
+     * Retrieve the linkage of a relationship like
+     * {@link #getRelationships(InternalContext)}, writing each resource
+     * identifier to the response as it is read from the database. The query
+     * is executed before this method returns, the returned output reads the
+     * open results and must be written before the persistence context of the
+     * request is closed.
+     *
+     * @param context the request context
+     * @return the response entity
+     */
+    public StreamingOutput streamRelationships(InternalContext context) {
+        final InternalQuery params = context.getQuery();
+        final EntityMeta meta = model.getEntityMeta(context.getResourceType());
+        final EntityMeta joinMeta = getFetchMeta(context);
+        final String relationshipType = joinMeta.getResourceType();
+        final TypedQuery<Tuple> query = buildRelationshipQuery(context, meta, joinMeta);
+        final JsonObject linkageMeta = getRelationshipMeta(context, meta);
+
+        query.setHint(FETCH_SIZE_HINT, joinMeta.getStreamingFetchSize());
+        final Stream<Tuple> results = query.getResultStream();
+
+        return output -> {
+            // The generator is flushed rather than closed, the output belongs to the container
+            final JsonGenerator generator = Json.createGenerator(output);
+            final String nextCursor;
+
+            generator.writeStartObject();
+            generator.write("jsonapi", Json.createObjectBuilder().add("version", "1.0").build());
+            generator.writeStartArray("data");
+
+            try (results) {
+                nextCursor = readLinkage(results.iterator(),
+                                         params,
+                                         relatedId -> generator.writeStartObject()
+                                                               .write("type", relationshipType)
+                                                               .write("id", relatedId)
+                                                               .writeEnd());
+            }
+
+            generator.writeEnd();
+            generator.write("links", writer.getRelationshipLinks(params.getUriInfo(),
+                                                                 meta.getResourceType(),
+                                                                 context.getResourceId(),
+                                                                 context.getRelationshipName(),
+                                                                 getRelationshipNextLink(params, nextCursor)));
+
+            if (linkageMeta != null) {
+                generator.write("meta", linkageMeta);
+            }
+
+            generator.writeEnd();
+            generator.flush();
+        };
+    }
+
+    TypedQuery<Tuple> buildRelationshipQuery(InternalContext context, EntityMeta meta, EntityMeta joinMeta) {
+        final InternalQuery params = context.getQuery();
+        final CriteriaBuilder builder = em.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        final Root<Object> root = query.from(meta.getEntityClass());
+        final Join<Object, Object> join = root.join(context.getRelationshipName());
+        final List<String> cursorKeys = getCursorKeys(params);
+        final List<Selection<?>> selections = new ArrayList<>(cursorKeys.size());
+
+        for (int i = 0; i < cursorKeys.size(); i++) {
+            String sortKey = cursorKeys.get(i);
+            String attribute = sortKey.substring(sortKey.startsWith("-") ? 1 : 0);
+            selections.add(getSortPath(join, joinMeta, attribute).alias(ALIAS_PRE + "key" + i));
+        }
+
+        query.select(builder.tuple(selections));
+
+        final QueryParameters parameters = new QueryParameters(builder);
+        final List<Predicate> predicates = buildPredicates(builder,
+                                                           root,
+                                                           context.getSecurity().getUserPrincipal(),
+                                                           meta,
+                                                           context.getResourceId(),
+                                                           parameters);
+
+        if (params.isCursorPaging() && !params.getCursor().isEmpty()) {
+            predicates.add(buildSeekPredicate(builder, join, joinMeta, params, parameters));
+        }
+
+        query.where(predicates.toArray(new Predicate[predicates.size()]));
+        // Ordered by the related resource's id for a stable position of every resource
+        query.orderBy(getOrderBy(builder, join, joinMeta, cursorKeys, true));
+
+        TypedQuery<Tuple> typedQuery = readOnly(meta, parameters.applyTo(em.createQuery(query)));
+
+        if (params.getFirstResult() != null) {
+            typedQuery.setFirstResult(params.getFirstResult());
+        }
+
+        if (params.getMaxResults() != null) {
+            // Fetch one more than the page size to detect whether another page follows.
+            typedQuery.setMaxResults(params.getMaxResults() + 1);
+        }
+
+        return typedQuery;
+    }
+
+    /**
+     * Give the related resource identifiers of the page to the consumer.
+     *
+     * @return the cursor of the next page or null if this is the last page
+     */
+    String readLinkage(Iterator<Tuple> results, InternalQuery params, Consumer<String> consumer) {
+        final Integer pageSize = params.getMaxResults();
+        final List<String> cursorKeys = getCursorKeys(params);
+        Tuple last = null;
+        int count = 0;
+
+        while (results.hasNext()) {
+            Tuple result = results.next();
+
+            if (pageSize != null && count == pageSize) {
+                Map<String, Object> keys = new LinkedHashMap<>();
+
+                for (int i = 0; i < cursorKeys.size(); i++) {
+                    String sortKey = cursorKeys.get(i);
+                    keys.put(sortKey.substring(sortKey.startsWith("-") ? 1 : 0), last.get(ALIAS_PRE + "key" + i));
+                }
+
+                return writer.getCursor(keys);
+            }
+
+            consumer.accept(String.valueOf(result.get(ALIAS_PRE + "key" + (cursorKeys.size() - 1))));
+            last = result;
+            count++;
+        }
+
+        return null;
+    }
+
+    /**
+     * Count the related resources when a page of the linkage is requested.
+     *
+     * @return the meta object with the count, or null when not paginated
+     */
+    JsonObject getRelationshipMeta(InternalContext context, EntityMeta meta) {
+        if (context.getQuery().getMaxResults() == null) {
+            return null;
+        }
+
+        final CriteriaBuilder builder = em.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        final Root<Object> root = query.from(meta.getEntityClass());
+        final Join<Object, Object> join = root.join(context.getRelationshipName());
+
+        final QueryParameters parameters = new QueryParameters(builder);
+        final List<Predicate> predicates = buildPredicates(builder,
+                                                           root,
+                                                           context.getSecurity().getUserPrincipal(),
+                                                           meta,
+                                                           context.getResourceId(),
+                                                           parameters);
+
+        query.select(builder.count(join)).where(predicates.toArray(new Predicate[predicates.size()]));
+        Long count = readOnly(meta, parameters.applyTo(em.createQuery(query))).getSingleResult();
+
+        return Json.createObjectBuilder().add("count", count).build();
+    }
+
+    String getRelationshipNextLink(InternalQuery params, String nextCursor) {
+        return nextCursor != null ? writer.getNextLink(params.getUriInfo(), nextCursor, params.getMaxResults()) : null;
     }
 
     Class<?>[] getValidationGroups(InternalContext context) {
@@ -191,6 +665,7 @@ public class PersistenceController {
 
         em.persist(entity);
         em.flush();
+        evictCached(meta);
 
         handler.afterPersist(context, entity);
 
@@ -231,6 +706,7 @@ public class PersistenceController {
 
         final Object updatedEntity = em.merge(entity);
         em.flush();
+        evictCached(meta);
 
         handler.afterMerge(context, entity);
 
@@ -252,6 +728,7 @@ public class PersistenceController {
         try {
             em.remove(entity);
             em.flush();
+            evictCached(model.getEntityMeta(resourceType));
             handler.afterDelete(context, entity);
             return true;
         } catch (PersistenceException e) {
@@ -259,16 +736,17 @@ public class PersistenceController {
         }
     }
 
-    static <T> List<Predicate> buildPredicates(CriteriaBuilder builder,
-                                               Root<T> root,
-                                               Principal user,
-                                               EntityMeta meta,
-                                               String id) {
+    <T> List<Predicate> buildPredicates(CriteriaBuilder builder,
+                                        Root<T> root,
+                                        Principal user,
+                                        EntityMeta meta,
+                                        String id,
+                                        QueryParameters parameters) {
         List<Predicate> predicates = new ArrayList<>(2);
 
         if (user != null) {
             String namePath = meta.getPrincipalNamePath();
-            Predicate userPredicate = buildPredicate(builder, root, namePath, user.getName());
+            Predicate userPredicate = buildPredicate(builder, root, namePath, FilterOperator.EQ, user.getName(), "principal", parameters);
 
             if (userPredicate != null) {
                 predicates.add(userPredicate);
@@ -276,17 +754,20 @@ public class PersistenceController {
         }
 
         if (id != null) {
-            final Object key = meta.readId(id);
-            predicates.add(builder.equal(root.get(meta.getExposedIdAttribute()), key));
+            Path<?> idPath = root.get(meta.getExposedIdAttribute());
+            predicates.add(builder.equal(idPath, parameters.bind("id", idPath.getJavaType(), readKey(meta, id))));
         }
 
         return predicates;
     }
 
-    static <T> Predicate buildPredicate(CriteriaBuilder builder,
-                                        Root<T> root,
-                                        String path,
-                                        String value) {
+    <T> Predicate buildPredicate(CriteriaBuilder builder,
+                                 Root<T> root,
+                                 String path,
+                                 FilterOperator operator,
+                                 String value,
+                                 String parameterName,
+                                 QueryParameters parameters) {
         Predicate p = null;
 
         if (path != null && path.length() > 0) {
@@ -295,13 +776,7 @@ public class PersistenceController {
 
             for (int i = 0; i < elements.length; i++) {
                 if (i + 1 == elements.length) {
-                    if ("null".equals(value)) {
-                        p = builder.isNull(namePath.get(elements[i]));
-                    } else if ("!null".equals(value)) {
-                        p = builder.isNotNull(namePath.get(elements[i]));
-                    } else {
-                        p = builder.equal(namePath.get(elements[i]), value);
-                    }
+                    p = buildPredicate(builder, namePath, elements[i], operator, value, parameterName, parameters);
                 } else {
                     namePath = join(namePath, elements[i]);
                 }
@@ -311,6 +786,76 @@ public class PersistenceController {
         return p;
     }
 
+    @SuppressWarnings({ "unchecked", "rawtypes", "java:S3740" })
+    Predicate buildPredicate(CriteriaBuilder builder,
+                             From<?, ?> from,
+                             String attribute,
+                             FilterOperator operator,
+                             String value,
+                             String parameterName,
+                             QueryParameters parameters) {
+
+        final Path attributePath = from.get(attribute);
+        final Class<?> attributeType = attributePath.getJavaType();
+
+        switch (operator) {
+        case LT:
+            return builder.lessThan(attributePath, parameters.bind(parameterName, (Class<Comparable>) attributeType, readParameterValue(from, attribute, value)));
+        case LTE:
+            return builder.lessThanOrEqualTo(attributePath, parameters.bind(parameterName, (Class<Comparable>) attributeType, readParameterValue(from, attribute, value)));
+        case GT:
+            return builder.greaterThan(attributePath, parameters.bind(parameterName, (Class<Comparable>) attributeType, readParameterValue(from, attribute, value)));
+        case GTE:
+            return builder.greaterThanOrEqualTo(attributePath, parameters.bind(parameterName, (Class<Comparable>) attributeType, readParameterValue(from, attribute, value)));
+        case IN:
+            List<Object> values = new ArrayList<>();
+
+            for (String v : value.split(",")) {
+                values.add(readParameterValue(from, attribute, v));
+            }
+
+            return attributePath.in(parameters.bind(parameterName, Collection.class, values));
+        case PREFIX:
+            // Anchored at the start of the value so that an index on the column may be used
+            String pattern = LIKE_SPECIAL.matcher(value).replaceAll("\\\\$0") + '%';
+            return builder.like(attributePath, parameters.bind(parameterName, String.class, pattern), '\\');
+        default:
+            if ("null".equals(value)) {
+                return builder.isNull(attributePath);
+            }
+            if ("!null".equals(value)) {
+                return builder.isNotNull(attributePath);
+            }
+            return builder.equal(attributePath, parameters.bind(parameterName, attributeType, readParameterValue(from, attribute, value)));
+        }
+    }
+
+    Object readKey(EntityMeta meta, String id) {
+        Object key = meta.readId(id);
+
+        if (key instanceof String) {
+            // Default id reader, convert to the type of the attribute
+            return meta.readValue(meta.getExposedIdAttribute().getName(), id);
+        }
+
+        return key;
+    }
+
+    /**
+     * Convert a string value given in a request's URI to the type of an
+     * entity attribute. Values for entities that are not configured resource
+     * types (e.g. within a principal name path) are not converted.
+     */
+    Object readParameterValue(From<?, ?> from, String attribute, String value) {
+        EntityMeta meta = model.getEntityMeta(from.getJavaType());
+
+        if (meta != null && (meta.hasAttribute(attribute) || meta.getExposedIdAttribute().getName().equals(attribute))) {
+            return meta.readValue(attribute, value);
+        }
+
+        return value;
+    }
+
     @SuppressWarnings("java:S1452") // Suppress Sonar warnings regarding missing generic types
     static <Z, X> Join<X, ?> join(From<Z, X> from, String attribute) {
         final String relationship;
@@ -365,17 +910,19 @@ public class PersistenceController {
             Root<T> root = query.from(entityClass);
             query.select(root.alias("root"));
 
+            QueryParameters parameters = new QueryParameters(builder);
             List<Predicate> predicates = buildPredicates(builder,
                                                          root,
                                                          context.getSecurity().getUserPrincipal(),
                                                          meta,
-                                                         id);
+                                                         id,
+                                                         parameters);
 
             if (!predicates.isEmpty()) {
                 query.where(predicates.toArray(new Predicate[predicates.size()]));
             }
 
-            Query q = em.createQuery(query);
+            Query q = withHints(meta, parameters.applyTo(em.createQuery(query)));
             q.setHint("jakarta.persistence.fetchgraph", graph);
 
             entity = (T) q.getSingleResult();
@@ -388,25 +935,344 @@ public class PersistenceController {
         return entity;
     }
 
-    public <T> JsonObject fetch(InternalContext context, JsonApiHandler<T> handler) {
+    /**
+     * Find the resources of a type identified in a request, e.g. by the
+     * resource identifiers of the relationships in a request body. The
+     * resources are retrieved with one query per chunk of identifiers (the
+     * resources owned by the user when the type has a principal name path).
+     * When requested and the type is
+     * {@link EntityMeta#isReferencedById() referenced by id}, only the
+     * identifiers are selected and the resources found are obtained as
+     * references without loading them.
+     *
+     * @param context the request context
+     * @param resourceType type of the resources
+     * @param ids identifiers given by the client
+     * @param byReference true to obtain references when the type is
+     *        referenced by id
+     * @return the resources found, by the identifier given by the client
+     */
+    public Map<String, Object> findObjects(InternalContext context,
+                                           String resourceType,
+                                           Collection<String> ids,
+                                           boolean byReference) {
+        final EntityMeta meta = model.getEntityMeta(resourceType);
+        final Map<String, Object> keys = new HashMap<>(ids.size());
+        final Map<String, Object> found = new HashMap<>(ids.size());
+
+        for (String id : ids) {
+            try {
+                keys.put(id, readKey(meta, id));
+            } catch (IllegalArgumentException e) {
+                // Not a valid identifier, reported as not found by the caller
+            }
+        }
+
+        if (keys.isEmpty()) {
+            return found;
+        }
+
+        final boolean references = byReference && meta.isReferencedById() && isExposedId(meta);
+
+        // Keys are compared by their string forms, the id reader may give another numeric type
+        final Map<String, String> idsByKey = new HashMap<>(keys.size());
+        keys.forEach((id, key) -> idsByKey.put(String.valueOf(key), id));
+
+        try {
+            final List<List<Object>> keyChunks = getInListChunks(new HashSet<>(keys.values()));
+            final TypedQuery<Object> query = buildFindObjectsQuery(context, meta, keyChunks.get(0), references);
+
+            for (List<Object> keyChunk : keyChunks) {
+                for (Object result : query.setParameter("keys", keyChunk).getResultList()) {
+                    Object key = references ? result : meta.getExposedIdValue(result);
+                    String id = idsByKey.get(String.valueOf(key));
+
+                    if (id != null) {
+                        found.put(id, references ? em.getReference(meta.getEntityClass(), result) : result);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new JsonApiErrorException(Status.INTERNAL_SERVER_ERROR, "Server Error", e.getMessage());
+        }
+
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    TypedQuery<Object> buildFindObjectsQuery(InternalContext context, EntityMeta meta, List<Object> keys, boolean idsOnly) {
+        final Class<Object> entityClass = meta.getEntityClass();
+        final CriteriaBuilder builder = em.getCriteriaBuilder();
+        final CriteriaQuery<Object> query = builder.createQuery();
+        final Root<Object> root = query.from(entityClass);
+
+        final QueryParameters parameters = new QueryParameters(builder);
+        final List<Predicate> predicates = buildPredicates(builder,
+                                                           root,
+                                                           context.getSecurity().getUserPrincipal(),
+                                                           meta,
+                                                           null,
+                                                           parameters);
+
+        predicates.add(root.get(meta.getExposedIdAttribute()).in(parameters.bind("keys", Collection.class, keys)));
+        query.where(predicates.toArray(new Predicate[predicates.size()]));
+
+        if (idsOnly) {
+            query.select(root.get(meta.getExposedIdAttribute()));
+            return withHints(meta, parameters.applyTo(em.createQuery(query)));
+        }
+
+        query.select(root.alias("root"));
+
+        EntityGraph<Object> graph = em.createEntityGraph(entityClass);
+        graph.addAttributeNodes(meta.getEntityType()
+                                    .getAttributes()
+                                    .stream()
+                                    .filter(a -> !a.isAssociation())
+                                    .toArray(Attribute[]::new));
+
+        TypedQuery<Object> typedQuery = withHints(meta, parameters.applyTo(em.createQuery(query)));
+        typedQuery.setHint("jakarta.persistence.fetchgraph", graph);
+        return typedQuery;
+    }
+
+    /**
+     * @return the metadata of the resources retrieved by a GET request, i.e.
+     *         the related resources when a relationship is requested
+     */
+    EntityMeta getFetchMeta(InternalContext context) {
         final InternalQuery params = context.getQuery();
-        final EntityMeta meta;
-        final EntityMeta relatedMeta;
         final String relationshipName = context.getRelationshipName();
 
         if (relationshipName != null) {
-            meta = model.getEntityMeta(params.getEntityMeta().getRelatedEntityClass(relationshipName));
-            relatedMeta = params.getEntityMeta();
+            return model.getEntityMeta(params.getEntityMeta().getRelatedEntityClass(relationshipName));
+        }
+
+        return params.getEntityMeta();
+    }
+
+    /**
+     * @return the metadata of the resource owning the relationship requested,
+     *         or null when no relationship is requested
+     */
+    EntityMeta getFetchRelatedMeta(InternalContext context) {
+        return context.getRelationshipName() != null ? context.getQuery().getEntityMeta() : null;
+    }
+
+    /**
+     * Determine whether the response to a GET request may be streamed using
+     * {@link #stream(InternalContext) stream}. Streaming is used for
+     * collections of resource types with a streaming fetch size, when every
+     * include path starts with a to-one relationship. Linkage data of to-many
+     * relationships can not be known before the related resources are
+     * retrieved. Requests that are part of a transaction are not streamed,
+     * the transaction (and a transaction-scoped persistence context) ends
+     * before the response is written.
+     *
+     * @param context the request context
+     * @return true when the response may be streamed
+     */
+    public boolean isStreamable(InternalContext context) {
+        final InternalQuery params = context.getQuery();
+        final EntityMeta meta = getFetchMeta(context);
+        final EntityMeta relatedMeta = getFetchRelatedMeta(context);
+
+        if (meta.getStreamingFetchSize() < 1
+                || em.isJoinedToTransaction()
+                || isSingular(relatedMeta, context.getRelationshipName(), params)) {
+            return false;
+        }
+
+        return params.getInclude()
+                     .stream()
+                     .map(path -> path.split("\\.")[0])
+                     .noneMatch(name -> model.getRelationship(meta, name).isCollection());
+    }
+
+    /**
+     * Determine whether only the number of resources in a collection is
+     * requested, either with a page size of zero or a HEAD request. The
+     * count is also given in the `X-Total-Count` header of the response,
+     * the only place a HEAD request receives it.
+     *
+     * @param context the request context
+     * @return true when the data query may be skipped
+     */
+    public boolean isCountOnly(InternalContext context) {
+        final InternalQuery params = context.getQuery();
+
+        if (isSingular(getFetchRelatedMeta(context), context.getRelationshipName(), params)) {
+            return false;
+        }
+
+        return Integer.valueOf(0).equals(params.getMaxResults())
+                || HttpMethod.HEAD.equals(context.getRequest().getMethod());
+    }
+
+    /**
+     * Count the resources of a collection using only the query built for the
+     * `totalResults` of a page. The count is exact unless the resource type
+     * or the client requested an estimate.
+     *
+     * @param context the request context
+     * @return the document with `meta.totalResults` and no primary data
+     */
+    public JsonObject count(InternalContext context) {
+        final EntityMeta meta = getFetchMeta(context);
+        final EntityMeta relatedMeta = getFetchRelatedMeta(context);
+        final TypedQuery<?> countQuery;
+        final Integer countLimit;
+
+        if (getTotalResultsStrategy(meta, context.getQuery()) == TotalResults.ESTIMATE) {
+            countLimit = meta.getTotalResultsLimit();
+            countQuery = buildCountQuery(context, meta, relatedMeta, true);
+            // One additional result is requested to determine whether the limit was exceeded
+            countQuery.setMaxResults(countLimit + 1);
         } else {
-            meta = params.getEntityMeta();
-            relatedMeta = null;
+            countLimit = null;
+            countQuery = buildCountQuery(context, meta, relatedMeta, false);
         }
 
+        return writer.topLevelBuilder()
+                     .add("meta", getTotalResults(countQuery, countLimit))
+                     .add("data", JsonValue.EMPTY_JSON_ARRAY)
+                     .build();
+    }
+
+    /**
+     * Retrieve a collection of resources, writing each resource to the
+     * response as it is read from the database. The results are read using a
+     * stream with the resource type's JDBC fetch size and the included
+     * resources are written following the primary data. The query is executed
+     * before this method returns, the returned output reads the open results
+     * and must be written before the persistence context of the request is
+     * closed.
+     *
+     * @param context the request context
+     * @return the response entity
+     */
+    public StreamingOutput stream(InternalContext context) {
+        final InternalQuery params = context.getQuery();
+        final EntityMeta meta = getFetchMeta(context);
+        final FetchQueries queries = buildQueries(context, meta, getFetchRelatedMeta(context));
+        final JsonObject totalResults = getTotalResults(queries);
+
+        queries.dataQuery.setHint(FETCH_SIZE_HINT, meta.getStreamingFetchSize());
+        final Stream<Tuple> results = queries.dataQuery.getResultStream();
+
+        return output -> {
+            // The generator is flushed rather than closed, the output belongs to the container
+            final JsonGenerator generator = Json.createGenerator(output);
+
+            try (results) {
+
+                generator.writeStartObject();
+                generator.write("jsonapi", Json.createObjectBuilder().add("version", "1.0").build());
+
+                if (totalResults != null) {
+                    generator.write("meta", totalResults);
+                }
+
+                generator.writeStartArray("data");
+
+                final Map<Entity, Map<String, List<Entity>>> included = new HashMap<>();
+                final Map<String, Map<Object, Map<String, List<Entity>>>> levels = new HashMap<>();
+                final Map<String, EntityMeta> joinedMeta = new HashMap<>();
+                final Set<Object> primaryIds = new HashSet<>();
+                final Map<String, Object> related = new TreeMap<>();
+                final Integer pageSize = params.isCursorPaging() ? params.getMaxResults() : null;
+                final Iterator<Tuple> cursor = results.iterator();
+                Entity lastEntity = null;
+                boolean hasNextPage = false;
+                int count = 0;
+
+                for (String joinedInclude : queries.joinedIncludes) {
+                    levels.put(joinedInclude, new HashMap<>());
+                    joinedMeta.put(joinedInclude, model.getEntityMeta(meta.getRelatedEntityClass(joinedInclude)));
+                }
+
+                while (cursor.hasNext()) {
+                    Tuple result = cursor.next();
+
+                    if (pageSize != null && count++ == pageSize) {
+                        // One additional result was requested to determine whether a next page exists
+                        hasNextPage = true;
+                        break;
+                    }
+
+                    lastEntity = toEntity(meta, result, queries.attributes);
+                    primaryIds.add(lastEntity.getId());
+
+                    related.clear();
+                    related.putAll(getRelationshipPrototype(meta));
+
+                    for (String joinedInclude : queries.joinedIncludes) {
+                        related.put(joinedInclude, getJoinedIncluded(joinedMeta.get(joinedInclude),
+                                                                     result,
+                                                                     joinedInclude,
+                                                                     levels.get(joinedInclude),
+                                                                     included));
+                    }
+
+                    queries.counted.forEach(relationship -> related.put(relationship, result.get(ALIAS_PRE + relationship)));
+                    generator.write(writer.toJson(lastEntity, related, params, params.getUriInfo()));
+                }
+
+                generator.writeEnd();
+
+                if (hasNextPage) {
+                    String nextCursor = writer.getCursor(lastEntity, params);
+                    generator.writeStartObject("links")
+                             .write("next", writer.getNextLink(params.getUriInfo(), nextCursor, params.getMaxResults()))
+                             .writeEnd();
+                }
+
+                final JsonObject missingIds = totalResults == null ? getMissingIds(meta, params, primaryIds) : null;
+
+                if (missingIds != null) {
+                    generator.write("meta", missingIds);
+                }
+
+                // The primary level is not needed, to-many includes are not streamed
+                levels.put("", Collections.emptyMap());
+                getIncluded(meta, levels, params.getInclude(), included);
+
+                // Resources in the primary data are not repeated in `included`
+                included.keySet().removeIf(e -> e.getEntityMeta() == meta && primaryIds.contains(e.getId()));
+
+                if (!included.isEmpty()) {
+                    generator.write("included", mapIncludedToJson(params, included).build());
+                }
+
+                generator.writeEnd();
+                generator.flush();
+            }
+        };
+    }
+
+    public <T> JsonObject fetch(InternalContext context, JsonApiHandler<T> handler) {
+        final InternalQuery params = context.getQuery();
+        final EntityMeta meta = getFetchMeta(context);
+        final EntityMeta relatedMeta = getFetchRelatedMeta(context);
+        final String relationshipName = context.getRelationshipName();
+
         final Class<Object> entityClass = meta.getEntityClass();
         final FetchQueries queries = buildQueries(context, meta, relatedMeta);
 
-        final List<Tuple> results = queries.dataQuery.getResultList();
-        final Long totalResults = queries.countQuery != null ? queries.countQuery.getSingleResult() : null;
+        final List<Tuple> results;
+        final boolean hasNextPage;
+
+        if (params.isCursorPaging()) {
+            // One additional result was requested to determine whether a next page exists
+            List<Tuple> candidates = queries.dataQuery.getResultList();
+            hasNextPage = candidates.size() > params.getMaxResults();
+            results = hasNextPage ? candidates.subList(0, params.getMaxResults()) : candidates;
+        } else {
+            results = queries.dataQuery.getResultList();
+            hasNextPage = false;
+        }
+
+        final JsonObject totalResults = getTotalResults(queries);
 
         /*
          * Build empty map to hold relationships based on those requested by the
@@ -414,25 +1280,39 @@ public class PersistenceController {
          **/
         final Map<Object, Map<String, List<Entity>>> relationships = initializeRelationships(results, meta);
 
+        /* Relationships of the included resources, by resource */
+        final Map<Entity, Map<String, List<Entity>>> included = new HashMap<>();
+
+        /* Included resources retrieved by level, starting with the primary resources */
+        final Map<String, Map<Object, Map<String, List<Entity>>>> levels = new HashMap<>();
+        levels.put("", relationships);
+
+        for (String joinedInclude : queries.joinedIncludes) {
+            levels.put(joinedInclude, getJoinedIncluded(meta, results, relationships, joinedInclude, included));
+        }
+
         /* Only retrieve included records if something was found. */
         if (!results.isEmpty()) {
-            for (String included : params.getInclude()) {
-                getIncluded(entityClass, relationships, included);
-            }
+            getIncluded(meta, levels, params.getInclude(), included);
         }
 
         JsonArrayBuilder data = Json.createArrayBuilder();
         Map<String, Object> related = new TreeMap<>();
         JsonValue dataEntry = null;
+        Entity lastEntity = null;
+        Set<Object> primaryIds = new HashSet<>();
 
         for (Tuple result : results) {
-            Object entity = result.get("root");
-            Object resultId = meta.getIdValue(entity);
+            Object resultId = result.get(ID_ALIAS);
+            lastEntity = toEntity(meta, result, queries.attributes);
+            primaryIds.add(lastEntity.getId());
+            // Resources in the primary data are not repeated in `included`
+            included.remove(lastEntity);
 
             related.clear();
             related.putAll(relationships.get(resultId));
             queries.counted.forEach(relationship -> related.put(relationship, result.get(ALIAS_PRE + relationship)));
-            dataEntry = writer.toJson(new Entity(meta, entity), related, params, params.getUriInfo());
+            dataEntry = writer.toJson(lastEntity, related, params, params.getUriInfo());
             data.add(dataEntry);
         }
 
@@ -443,18 +1323,28 @@ public class PersistenceController {
         }
 
         JsonObjectBuilder response = writer.topLevelBuilder();
+        JsonObject missingIds;
 
         if (totalResults != null) {
-            response.add("meta", Json.createObjectBuilder().add("totalResults", totalResults));
+            response.add("meta", totalResults);
+        } else if ((missingIds = getMissingIds(meta, params, primaryIds)) != null) {
+            response.add("meta", missingIds);
+        }
+
+        if (hasNextPage) {
+            String nextCursor = writer.getCursor(lastEntity, params);
+            response.add("links", Json.createObjectBuilder()
+                                      .add("next", writer.getNextLink(params.getUriInfo(), nextCursor, params.getMaxResults())));
         }
 
         if (isSingular(relatedMeta, relationshipName, params)) {
             if (dataEntry == null) {
                 handler.afterFind(context, null);
                 dataEntry = JsonValue.NULL;
-            } else {
+            } else if (overridesAfterFind(handler)) {
+                // Only load the managed entity when the handler may use it
                 @SuppressWarnings("unchecked")
-                T resultEntity = (T) results.get(0).get("root");
+                T resultEntity = (T) em.find(entityClass, results.get(0).get(ID_ALIAS), getFindHints(meta));
                 handler.afterFind(context, resultEntity);
             }
 
@@ -463,9 +1353,6 @@ public class PersistenceController {
             response.add("data", data);
         }
 
-        // Get unique set of included objects
-        final Set<Entity> included = distinctRelated(relationships);
-
         if (!included.isEmpty()) {
             response.add("included", mapIncludedToJson(params, included));
         }
@@ -478,120 +1365,606 @@ public class PersistenceController {
         final String relationshipName = context.getRelationshipName();
 
         Class<Object> entityClass = meta.getEntityClass();
-        EntityType<Object> rootType = meta.getEntityType();
-
-        String id = params.getId();
 
         final CriteriaBuilder builder = em.getCriteriaBuilder();
         final CriteriaQuery<Tuple> query = builder.createTupleQuery();
 
         Root<Object> root = query.from(entityClass);
         root.alias("root");
-        Join<Object, Object> relatedJoin;
+        Join<Object, Object> relatedJoin = joinRelated(root, relatedMeta, relationshipName);
 
-        if (relationshipName != null) {
-            Class<Object> owningType = relatedMeta.getEntityType().getJavaType();
-            Attribute<Object, ?> attribute = relatedMeta.getEntityType().getAttribute(relationshipName);
-            relatedJoin = root.join(inverseOf(owningType, attribute).getName());
-        } else {
-            relatedJoin = null;
-        }
+        // First segment of each include path, e.g. `comments` for `comments.author`
+        Set<String> includedNames = params.getInclude()
+                                          .stream()
+                                          .map(path -> path.split("\\.")[0])
+                                          .collect(Collectors.toSet());
 
-        Set<String> counted = rootType.getAttributes()
-                                      .stream()
-                                      .filter(Attribute::isAssociation)
-                                      .map(Attribute::getName)
-                                      .filter(meta::isRelatedTo)
-                                      .filter(not(params.getInclude()::contains))
-                                      .collect(Collectors.toSet());
+        Set<String> counted = meta.getRelationshipNames()
+                                  .stream()
+                                  .filter(not(includedNames::contains))
+                                  .filter(name -> isCounted(meta, params, name))
+                                  .collect(Collectors.toSet());
+
+        // To-one relationships included are retrieved with the primary data
+        Set<String> joinedIncludes = includedNames.stream()
+                                                  .filter(meta::isRelatedTo)
+                                                  .filter(name -> !model.getRelationship(meta, name).isCollection())
+                                                  .collect(Collectors.toCollection(TreeSet::new));
+
+        final boolean countSubqueries = meta.getRelationshipCounts() == RelationshipCounts.SUBQUERY;
+
+        Set<String> attributes = getProjectedAttributes(meta, params);
 
         /*
-         * Select the root entity and count all non-included relationships.
+         * Select the identifiers and requested attributes of the root entity
+         * and count all non-included relationships.
          */
-        List<Selection<?>> selections = new ArrayList<>(1 + counted.size());
-        selections.add(root);
+        List<Selection<?>> selections = new ArrayList<>(2 + attributes.size() + counted.size());
+        selections.add(root.get(meta.getIdAttribute()).alias(ID_ALIAS));
+
+        if (!isExposedId(meta)) {
+            selections.add(root.get(meta.getExposedIdAttribute()).alias(EXPOSED_ID_ALIAS));
+        }
+
+        List<Expression<?>> grouping = new ArrayList<>(1 + joinedIncludes.size());
+        grouping.add(root);
+
+        for (String attribute : attributes) {
+            Path<?> path = getSortPath(root, meta, attribute);
+            selections.add(path.alias(getAttributeAlias(attribute)));
+
+            if (attribute.indexOf('.') > 0) {
+                // Sort key of a related resource, not functionally dependent on the root for the database
+                grouping.add(path);
+            }
+        }
+
+        for (String included : joinedIncludes) {
+            Join<Object, Object> includeJoin = root.join(included, JoinType.LEFT);
+            includeJoin.alias(ALIAS_PRE + INCLUDE_PRE + included);
+            selections.addAll(getIncludeSelections(model.getEntityMeta(meta.getRelatedEntityClass(included)), includeJoin, included));
+            grouping.add(includeJoin);
+        }
 
         for (String collection : counted) {
-            Join<Object, Object> countJoin = root.join(collection, JoinType.LEFT);
-            Expression<Long> count = builder.countDistinct(countJoin);
+            final Expression<Long> count;
+
+            if (countSubqueries) {
+                Subquery<Long> countQuery = query.subquery(Long.class);
+                Root<Object> countRoot = countQuery.correlate(root);
+                count = countQuery.select(builder.countDistinct(countRoot.join(collection)));
+            } else {
+                Join<Object, Object> countJoin = root.join(collection, JoinType.LEFT);
+                count = builder.countDistinct(countJoin);
+            }
+
             selections.add(count.alias(ALIAS_PRE + collection));
         }
 
-        query.select(builder.tuple(selections));
+        final QueryParameters parameters = new QueryParameters(builder);
+        final Expression<Integer> batchPosition = getBatchPosition(builder, root, meta, params, parameters);
 
-        final List<Predicate> predicates;
-
-        if (relationshipName != null) {
-            predicates = buildPredicates(builder, root, context.getSecurity().getUserPrincipal(), meta, null);
-            final Object key = meta.readId(id);
-            predicates.add(builder.equal(relatedJoin.get(relatedMeta.getExposedIdAttribute()), key));
-        } else {
-            predicates = buildPredicates(builder, root, context.getSecurity().getUserPrincipal(), meta, id);
+        if (batchPosition != null) {
+            // Selected for databases requiring the ORDER BY expressions of a DISTINCT query to be selected
+            selections.add(batchPosition.alias(ALIAS_PRE + "position"));
         }
 
-        if (!params.getFilters().isEmpty()) {
-            params.getFilters()
-                  .entrySet()
-                  .stream()
-                  .map(e -> buildPredicate(builder, root, e.getKey(), e.getValue()))
-                  .filter(Objects::nonNull)
-                  .forEach(predicates::add);
+        query.select(builder.tuple(selections));
+
+        final List<Predicate> predicates = buildFetchPredicates(context, builder, root, meta, relatedMeta, relatedJoin, parameters);
+
+        if (params.isCursorPaging() && !params.getCursor().isEmpty()) {
+            predicates.add(buildSeekPredicate(builder, root, meta, params, parameters));
         }
 
         if (!predicates.isEmpty()) {
             query.where(predicates.toArray(new Predicate[predicates.size()]));
         }
 
-        /*
-         * Group by the root entity (supports counting relationships).
-         */
-        query.groupBy(root);
-        query.orderBy(getOrderBy(builder, root, params));
+        if (!countSubqueries) {
+            /*
+             * Group by the root entity (supports counting relationships).
+             */
+            query.groupBy(grouping);
+        } else if (root.getJoins().size() > joinedIncludes.size()) {
+            // Joins for filters or a related resource may produce duplicate roots
+            query.distinct(true);
+        }
+        if (batchPosition != null) {
+            query.orderBy(builder.asc(batchPosition));
+        } else {
+            query.orderBy(getOrderBy(builder, root, meta, params));
+        }
 
-        TypedQuery<Tuple> typedQuery = em.createQuery(query);
+        TypedQuery<Tuple> typedQuery = readOnly(meta, parameters.applyTo(em.createQuery(query)));
 
         if (params.getFirstResult() != null) {
             typedQuery.setFirstResult(params.getFirstResult());
         }
 
-        TypedQuery<Long> countQuery;
-
-        if (params.getMaxResults() != null) {
+        if (params.isCursorPaging()) {
+            // Fetch one more than the page size to detect whether another page follows.
+            typedQuery.setMaxResults(params.getMaxResults() + 1);
+        } else if (params.getMaxResults() != null) {
             typedQuery.setMaxResults(params.getMaxResults());
+        }
+
+        final TotalResults totalResults = getTotalResultsStrategy(meta, params);
+        final TypedQuery<?> countQuery;
+        final Integer countLimit;
+
+        if (params.getMaxResults() == null || totalResults == TotalResults.NONE) {
+            countQuery = null;
+            countLimit = null;
+        } else if (totalResults == TotalResults.ESTIMATE) {
+            countLimit = meta.getTotalResultsLimit();
+            countQuery = buildCountQuery(context, meta, relatedMeta, true);
+            // One additional result is requested to determine whether the limit was exceeded
+            countQuery.setMaxResults(countLimit + 1);
+        } else {
+            countLimit = null;
+            countQuery = buildCountQuery(context, meta, relatedMeta, false);
+        }
+
+        return new FetchQueries(typedQuery, attributes, counted, joinedIncludes, countQuery, countLimit);
+    }
+
+    /**
+     * Build the position of each resource in the list of ids of a batch read
+     * (e.g. `filter[id]=3,1,2`) used to return the resources in the order
+     * requested. The requested sort keys take precedence, and cursor
+     * pagination uses the keyset order.
+     *
+     * @return the position expression or null when the resources are not
+     *         ordered by the list of ids
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes", "java:S3740" })
+    Expression<Integer> getBatchPosition(CriteriaBuilder builder,
+                                         Root<Object> root,
+                                         EntityMeta meta,
+                                         InternalQuery params,
+                                         QueryParameters parameters) {
+        final List<String> batchIds = params.getBatchIds();
+
+        if (batchIds == null || !params.getSort().isEmpty() || params.isCursorPaging()) {
+            return null;
+        }
+
+        final Path idPath = root.get(meta.getExposedIdAttribute());
+        final CriteriaBuilder.SimpleCase<Object, Integer> position = builder.selectCase(idPath);
+
+        for (int i = 0; i < batchIds.size(); i++) {
+            position.when(parameters.bind("batch" + i, idPath.getJavaType(), readKey(meta, batchIds.get(i))), i);
+        }
+
+        return position.otherwise(batchIds.size());
+    }
+
+    /**
+     * Find the ids of a batch read that are not present in the primary data.
+     * The ids are only reported when all results are given in a single page.
+     *
+     * @param foundIds the exposed ids of the resources retrieved
+     * @return the missing ids as given by the client, or null when the
+     *         request is not a batch read
+     */
+    JsonObject getMissingIds(EntityMeta meta, InternalQuery params, Set<Object> foundIds) {
+        if (params.getBatchIds() == null || params.getMaxResults() != null) {
+            return null;
+        }
+
+        // Compared by their string forms, the id reader may give another numeric type
+        Set<String> found = foundIds.stream().map(String::valueOf).collect(Collectors.toSet());
+        JsonArrayBuilder missing = Json.createArrayBuilder();
+
+        params.getBatchIds()
+              .stream()
+              .filter(id -> !found.contains(String.valueOf(readKey(meta, id))))
+              .forEach(missing::add);
+
+        return Json.createObjectBuilder().add("missingIds", missing).build();
+    }
+
+    /**
+     * Determine the attributes to be selected for the primary data: those
+     * requested by the sparse fieldset (if any) along with the sort keys
+     * needed to build a page cursor, including those of related resources.
+     */
+    Set<String> getProjectedAttributes(EntityMeta meta, InternalQuery params) {
+        Set<String> attributes = meta.getAttributeNames()
+                                     .stream()
+                                     .filter(name -> params.includeField(meta.getResourceType(), name))
+                                     .collect(Collectors.toCollection(TreeSet::new));
+
+        params.getSort()
+              .stream()
+              .map(key -> key.startsWith("-") ? key.substring(1) : key)
+              .forEach(attributes::add);
+
+        return attributes;
+    }
+
+    static boolean isExposedId(EntityMeta meta) {
+        return meta.getIdAttribute().getName().equals(meta.getExposedIdAttribute().getName());
+    }
+
+    static Entity toEntity(EntityMeta meta, Tuple result, Set<String> attributes) {
+        Object exposedId = result.get(isExposedId(meta) ? ID_ALIAS : EXPOSED_ID_ALIAS);
+        Map<String, Object> values = new HashMap<>(attributes.size());
+        attributes.forEach(attribute -> values.put(attribute, result.get(getAttributeAlias(attribute))));
+        return new Entity(meta, exposedId, values);
+    }
+
+    /**
+     * Select the key, exposed id and attributes of a to-one relationship
+     * included with the primary data.
+     */
+    static List<Selection<?>> getIncludeSelections(EntityMeta includedMeta, Join<Object, Object> includeJoin, String included) {
+        final String prefix = ALIAS_PRE + INCLUDE_PRE + included + '_';
+        final List<Selection<?>> selections = new ArrayList<>(2 + includedMeta.getAttributes().size());
+
+        selections.add(includeJoin.get(includedMeta.getIdAttribute()).alias(prefix + ID_ALIAS));
+
+        if (!isExposedId(includedMeta)) {
+            selections.add(includeJoin.get(includedMeta.getExposedIdAttribute()).alias(prefix + EXPOSED_ID_ALIAS));
+        }
+
+        includedMeta.getAttributeNames().forEach(attribute -> selections.add(includeJoin.get(attribute).alias(prefix + attribute)));
+
+        return selections;
+    }
+
+    /**
+     * Build the entity for a to-one relationship included with the primary
+     * data, or null when the primary resource is not related.
+     */
+    static Entity toIncludedEntity(EntityMeta includedMeta, Tuple result, String included) {
+        final String prefix = ALIAS_PRE + INCLUDE_PRE + included + '_';
+
+        if (result.get(prefix + ID_ALIAS) == null) {
+            return null;
+        }
+
+        Object exposedId = result.get(prefix + (isExposedId(includedMeta) ? ID_ALIAS : EXPOSED_ID_ALIAS));
+        Map<String, Object> values = new HashMap<>(includedMeta.getAttributes().size());
+        includedMeta.getAttributeNames().forEach(attribute -> values.put(attribute, result.get(prefix + attribute)));
+        return new Entity(includedMeta, exposedId, values);
+    }
+
+    /**
+     * Determine whether the handler implements
+     * {@link JsonApiHandler#afterFind(io.xlate.jsonapi.rvp.JsonApiContext, Object)
+     * afterFind}, i.e. whether it may require the managed entity. A chain of
+     * handlers implements it when any handler in the chain does.
+     */
+    public static boolean overridesAfterFind(JsonApiHandler<?> handler) {
+        if (handler instanceof JsonApiHandlerChain) {
+            return ((JsonApiHandlerChain) handler).getChain()
+                                                  .stream()
+                                                  .anyMatch(PersistenceController::overridesAfterFind);
+        }
+
+        try {
+            return handler.getClass()
+                          .getMethod("afterFind", JsonApiContext.class, Object.class)
+                          .getDeclaringClass() != JsonApiHandler.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    boolean isCounted(EntityMeta meta, InternalQuery params, String relationshipName) {
+        List<String> requested = params.getCount();
+
+        if (requested != null) {
+            return requested.contains(relationshipName);
+        }
+
+        return meta.isCountedByDefault(relationshipName);
+    }
+
+    Join<Object, Object> joinRelated(Root<Object> root, EntityMeta relatedMeta, String relationshipName) {
+        if (relationshipName != null) {
+            return root.join(model.getRelationship(relatedMeta, relationshipName).getInverseAttribute().getName());
+        }
 
-            CriteriaQuery<Long> countBuilder = builder.createQuery(Long.class);
-            Root<Object> countRoot = countBuilder.from(entityClass);
-            countRoot.alias("root");
+        return null;
+    }
+
+    List<Predicate> buildFetchPredicates(InternalContext context,
+                                         CriteriaBuilder builder,
+                                         Root<Object> root,
+                                         EntityMeta meta,
+                                         EntityMeta relatedMeta,
+                                         Join<Object, Object> relatedJoin,
+                                         QueryParameters parameters) {
+        final InternalQuery params = context.getQuery();
+        final Principal user = context.getSecurity().getUserPrincipal();
+        final String id = params.getId();
+        final List<Predicate> predicates;
 
-            for (String collection : counted) {
-                countRoot.join(collection, JoinType.LEFT).alias(collection);
+        if (relatedJoin != null) {
+            predicates = buildPredicates(builder, root, user, meta, null, parameters);
+            final Path<?> relatedId = relatedJoin.get(relatedMeta.getExposedIdAttribute());
+            final Object key = readKey(relatedMeta, id);
+            predicates.add(builder.equal(relatedId, parameters.bind("relatedId", relatedId.getJavaType(), key)));
+        } else {
+            predicates = buildPredicates(builder, root, user, meta, id, parameters);
+        }
+
+        int index = 0;
+
+        // Filters are sorted by path for consistent parameter names
+        for (Map.Entry<String, String> filter : new TreeMap<>(params.getFilters()).entrySet()) {
+            String key = filter.getKey();
+            Predicate predicate = buildPredicate(builder,
+                                                 root,
+                                                 InternalQuery.getFilterPath(key),
+                                                 InternalQuery.getFilterOperator(key),
+                                                 filter.getValue(),
+                                                 "filter" + index++,
+                                                 parameters);
+
+            if (predicate != null) {
+                predicates.add(predicate);
             }
+        }
 
-            if (!predicates.isEmpty()) {
-                countBuilder.where(predicates.toArray(new Predicate[predicates.size()]));
+        return predicates;
+    }
+
+    TotalResults getTotalResultsStrategy(EntityMeta meta, InternalQuery params) {
+        if (params.getTotalResults() != null) {
+            return params.getTotalResults();
+        }
+        if (params.isCursorPaging()) {
+            /*
+             * Unless requested by the client, the total is not counted to keep
+             * the cost of every page independent of its position.
+             */
+            return TotalResults.NONE;
+        }
+        return meta.getTotalResults();
+    }
+
+    /**
+     * Build the query used to compute the total number of results. The query
+     * uses its own root with only the joins required by the request's
+     * predicates - the relationships counted by the data query are not joined.
+     *
+     * @param context request context
+     * @param meta metadata of the primary resource type
+     * @param relatedMeta metadata of the owning resource type for related
+     *        resource requests, otherwise null
+     * @param estimate when true, select the distinct identifiers of the
+     *        matching resources so that counting may stop once a limit is
+     *        reached, otherwise select the exact count
+     * @return the count query
+     */
+    TypedQuery<?> buildCountQuery(InternalContext context, EntityMeta meta, EntityMeta relatedMeta, boolean estimate) {
+        final CriteriaBuilder builder = em.getCriteriaBuilder();
+        final CriteriaQuery<Object> countBuilder = builder.createQuery();
+        final Root<Object> countRoot = countBuilder.from(meta.getEntityClass());
+        countRoot.alias("root");
+
+        final QueryParameters parameters = new QueryParameters(builder);
+        final Join<Object, Object> relatedJoin = joinRelated(countRoot, relatedMeta, context.getRelationshipName());
+        final List<Predicate> predicates = buildFetchPredicates(context, builder, countRoot, meta, relatedMeta, relatedJoin, parameters);
+
+        if (!predicates.isEmpty()) {
+            countBuilder.where(predicates.toArray(new Predicate[predicates.size()]));
+        }
+
+        if (estimate) {
+            countBuilder.select(countRoot.get(meta.getIdAttribute())).distinct(true);
+        } else {
+            countBuilder.select(builder.countDistinct(countRoot));
+        }
+
+        return readOnly(meta, parameters.applyTo(em.createQuery(countBuilder)));
+    }
+
+    /**
+     * Configure a query used by a GET request to run in read-only mode when
+     * enabled for the resource type: the provider is asked not to track the
+     * state of the entities loaded, and pending changes are not flushed
+     * before the query executes. The query timeout and cache hints of the
+     * resource type are also applied.
+     */
+    <Q extends Query> Q readOnly(EntityMeta meta, Q query) {
+        withHints(meta, query);
+
+        if (meta.isReadOnly()) {
+            READ_ONLY_HINTS.forEach(query::setHint);
+            query.setFlushMode(FlushModeType.COMMIT);
+        }
+        return query;
+    }
+
+    /**
+     * Allow the plan of the query to be reused and apply the query timeout
+     * configured for the resource type, if any, and the cache hints when the
+     * resource type is cacheable.
+     */
+    <Q extends Query> Q withHints(EntityMeta meta, Q query) {
+        query.setHint(PLAN_CACHEABLE_HINT, Boolean.TRUE);
+
+        if (meta.getQueryTimeout() > 0) {
+            query.setHint(QUERY_TIMEOUT_HINT, meta.getQueryTimeout());
+        }
+        if (meta.isCacheable()) {
+            CACHE_HINTS.forEach(query::setHint);
+        }
+        return query;
+    }
+
+    Map<String, Object> getFindHints(EntityMeta meta) {
+        Map<String, Object> hints = new HashMap<>();
+
+        if (meta.isReadOnly()) {
+            hints.putAll(READ_ONLY_HINTS);
+        }
+        if (meta.getQueryTimeout() > 0) {
+            hints.put(QUERY_TIMEOUT_HINT, meta.getQueryTimeout());
+        }
+        if (meta.isCacheable()) {
+            hints.putAll(CACHE_HINTS);
+        }
+
+        return hints;
+    }
+
+    /**
+     * Evict the cached entries of a modified resource type and of the
+     * cacheable types related to it, the latter possibly holding stale
+     * associations to the modified resources.
+     */
+    void evictCached(EntityMeta meta) {
+        final Cache cache = em.getEntityManagerFactory().getCache();
+
+        Stream.concat(Stream.of(meta),
+                      meta.getRelationshipNames()
+                          .stream()
+                          .map(meta::getRelatedEntityClass)
+                          .map(model::getEntityMeta))
+              .filter(Objects::nonNull)
+              .filter(EntityMeta::isCacheable)
+              .map(EntityMeta::getEntityClass)
+              .distinct()
+              .forEach(cache::evict);
+    }
+
+    JsonObject getTotalResults(FetchQueries queries) {
+        return getTotalResults(queries.countQuery, queries.countLimit);
+    }
+
+    JsonObject getTotalResults(TypedQuery<?> countQuery, Integer countLimit) {
+        if (countQuery == null) {
+            return null;
+        }
+
+        JsonObjectBuilder meta = Json.createObjectBuilder();
+
+        if (countLimit != null) {
+            int count = countQuery.getResultList().size();
+
+            if (count > countLimit) {
+                meta.add("totalResults", countLimit);
+                meta.add("totalResultsCapped", true);
+            } else {
+                meta.add("totalResults", count);
             }
-            Expression<Long> count = builder.countDistinct(countRoot);
-            countBuilder.select(count);
-            countQuery = em.createQuery(countBuilder);
         } else {
-            countQuery = null;
+            meta.add("totalResults", ((Number) countQuery.getSingleResult()).longValue());
         }
 
-        return new FetchQueries(typedQuery, counted, countQuery, relatedJoin);
+        return meta.build();
     }
 
-    void getIncluded(Class<Object> primaryClass,
-                     Map<Object, Map<String, List<Entity>>> relationships,
-                     String includedName) {
+    /**
+     * Retrieve the resources for the include paths requested, e.g.
+     * `comments.author`. The paths are loaded one level (path segment) at a
+     * time using a single query per level that is restricted to the keys of
+     * the resources found by the previous level. Each level is loaded once,
+     * regardless of the number of paths that share it.
+     *
+     * @param meta metadata of the primary resources
+     * @param levels relationships of the resources of each level already
+     *        loaded, by key, with the primary resources at the empty path
+     * @param includePaths the include paths requested
+     * @param included receives the relationships of each distinct included
+     *        resource
+     */
+    void getIncluded(EntityMeta meta,
+                     Map<String, Map<Object, Map<String, List<Entity>>>> levels,
+                     List<String> includePaths,
+                     Map<Entity, Map<String, List<Entity>>> included) {
+
+        for (String includePath : includePaths) {
+            String parentPath = "";
+            EntityMeta parentMeta = meta;
+
+            for (String includedName : includePath.split("\\.")) {
+                final String path = parentPath.isEmpty() ? includedName : parentPath + '.' + includedName;
+
+                if (!levels.containsKey(path)) {
+                    Map<Object, Map<String, List<Entity>>> parentLevel = levels.get(parentPath);
+
+                    if (parentLevel.isEmpty()) {
+                        levels.put(path, Collections.emptyMap());
+                    } else {
+                        levels.put(path, getIncluded(parentMeta, parentLevel, includedName, included));
+                    }
+                }
 
-        EntityMeta primaryMeta = model.getEntityMeta(primaryClass);
-        EntityType<Object> primaryType = primaryMeta.getEntityType();
+                parentPath = path;
+                parentMeta = model.getEntityMeta(parentMeta.getRelatedEntityClass(includedName));
+            }
+        }
+    }
 
-        Attribute<Object, ?> includedAttribute = primaryType.getAttribute(includedName);
-        @SuppressWarnings("unchecked")
-        Class<Object> includedClass = ((Bindable<Object>) includedAttribute).getBindableJavaType();
-        EntityMeta includedMeta = model.getEntityMeta(includedClass);
-        Attribute<Object, ?> inverseAttribute = inverseOf(primaryType.getJavaType(), includedAttribute);
+    /**
+     * Collect a to-one relationship included with the primary data from the
+     * results of the primary query.
+     *
+     * @return the relationships of the resources retrieved, by key
+     */
+    Map<Object, Map<String, List<Entity>>> getJoinedIncluded(EntityMeta meta,
+                                                             List<Tuple> results,
+                                                             Map<Object, Map<String, List<Entity>>> relationships,
+                                                             String includedName,
+                                                             Map<Entity, Map<String, List<Entity>>> included) {
+
+        final EntityMeta includedMeta = model.getEntityMeta(meta.getRelatedEntityClass(includedName));
+        final Map<Object, Map<String, List<Entity>>> level = new HashMap<>();
+
+        for (Tuple result : results) {
+            relationships.get(result.get(ID_ALIAS))
+                         .put(includedName, getJoinedIncluded(includedMeta, result, includedName, level, included));
+        }
+
+        return level;
+    }
+
+    /**
+     * Collect a to-one relationship included with the primary data from a
+     * single result of the primary query.
+     *
+     * @return the related resource, if any
+     */
+    List<Entity> getJoinedIncluded(EntityMeta includedMeta,
+                                   Tuple result,
+                                   String includedName,
+                                   Map<Object, Map<String, List<Entity>>> level,
+                                   Map<Entity, Map<String, List<Entity>>> included) {
+
+        final Entity includedEntity = toIncludedEntity(includedMeta, result, includedName);
+        final List<Entity> related = new ArrayList<>(1);
+
+        if (includedEntity != null) {
+            final String keyAlias = ALIAS_PRE + INCLUDE_PRE + includedName + '_' + ID_ALIAS;
+            level.computeIfAbsent(result.get(keyAlias),
+                                  k -> included.computeIfAbsent(includedEntity, e -> new HashMap<>(getRelationshipPrototype(includedMeta))));
+            related.add(includedEntity);
+        }
+
+        return related;
+    }
+
+    /**
+     * Retrieve a single level of included resources.
+     *
+     * @return the relationships of the resources retrieved, by key
+     */
+    Map<Object, Map<String, List<Entity>>> getIncluded(EntityMeta primaryMeta,
+                                                       Map<Object, Map<String, List<Entity>>> relationships,
+                                                       String includedName,
+                                                       Map<Entity, Map<String, List<Entity>>> included) {
+
+        EntityRelationship relationship = model.getRelationship(primaryMeta, includedName);
+        EntityMeta includedMeta = relationship.getRelatedMeta();
+        Class<Object> includedClass = includedMeta.getEntityClass();
+        Attribute<Object, ?> inverseAttribute = relationship.getInverseAttribute();
 
         final CriteriaBuilder builder = em.getCriteriaBuilder();
         final CriteriaQuery<Tuple> query = builder.createTupleQuery();
@@ -601,107 +1974,115 @@ public class PersistenceController {
 
         final Path<?> primaryId = join.get(primaryMeta.getIdAttribute());
         final Path<?> includedId = root.get(includedMeta.getExposedIdAttribute());
+        final String includedKeyAlias = isExposedId(includedMeta) ? "includedId" : "includedKey";
 
-        final List<Selection<?>> selections = new ArrayList<>(2 + includedMeta.getAttributes().size());
+        final List<Selection<?>> selections = new ArrayList<>(3 + includedMeta.getAttributes().size());
 
         selections.add(primaryId.alias("primaryId"));
         selections.add(includedId.alias("includedId"));
+
+        if (!isExposedId(includedMeta)) {
+            // The key is needed to retrieve the next level of a nested include path
+            selections.add(root.get(includedMeta.getIdAttribute()).alias(includedKeyAlias));
+        }
+
+        final int attributesStart = selections.size();
         selections.addAll(includedMeta.getAttributeNames()
                                       .stream()
                                       .map(attr -> root.get(attr).alias(attr))
                                       .collect(Collectors.toList()));
 
+        final List<List<Object>> keyChunks = getInListChunks(relationships.keySet());
+        final QueryParameters parameters = new QueryParameters(builder);
+
         query.select(builder.tuple(selections))
-             .where(primaryId.in(relationships.keySet()));
+             .where(primaryId.in(parameters.bind("primaryIds", Collection.class, keyChunks.get(0))));
 
-        TypedQuery<Tuple> typedQuery = em.createQuery(query);
+        TypedQuery<Tuple> typedQuery = readOnly(includedMeta, parameters.applyTo(em.createQuery(query)));
 
         // Initialize the included relationship for all selected entities
         relationships.values().stream().forEach(map -> map.put(includedName, new ArrayList<>()));
 
-        for (Tuple result : typedQuery.getResultList()) {
+        final Map<Object, Map<String, List<Entity>>> level = new HashMap<>();
+        final Map<String, List<Entity>> prototype = getRelationshipPrototype(includedMeta);
+        final List<Tuple> results = new ArrayList<>();
+
+        for (List<Object> keyChunk : keyChunks) {
+            results.addAll(typedQuery.setParameter("primaryIds", keyChunk).getResultList());
+        }
+
+        for (Tuple result : results) {
             Object primaryIdValue = result.get("primaryId");
             Object includedIdValue = result.get("includedId");
 
             Map<String, Object> includedAttributes = new HashMap<>();
 
             result.getElements()
-                  .subList(2, result.getElements().size())
+                  .subList(attributesStart, result.getElements().size())
                   .forEach(e -> includedAttributes.put(e.getAlias(), result.get(e)));
 
+            Entity includedEntity = new Entity(includedMeta, includedIdValue, includedAttributes);
+
+            // The same resource found by different paths or levels shares its relationships
+            level.computeIfAbsent(result.get(includedKeyAlias),
+                                  k -> included.computeIfAbsent(includedEntity, e -> new HashMap<>(prototype)));
+
             relationships.get(primaryIdValue)
                          .get(includedName)
-                         .add(new Entity(includedMeta, includedIdValue, includedAttributes));
+                         .add(includedEntity);
         }
-    }
 
-    @SuppressWarnings("java:S1452") // Suppress Sonar warnings regarding missing generic types
-    Attribute<Object, ?> inverseOf(Class<Object> type, Attribute<Object, ?> attribute) {
-        @SuppressWarnings("unchecked")
-        Bindable<Object> bindable = (Bindable<Object>) attribute;
-        String mappedBy = getMappedBy(attribute);
+        return level;
+    }
 
-        Class<Object> otherType = bindable.getBindableJavaType();
-        EntityType<Object> otherMeta = model.getEntityMeta(otherType).getEntityType();
+    Map<Object, Map<String, List<Entity>>> initializeRelationships(List<Tuple> results, EntityMeta meta) {
 
-        if (mappedBy.isEmpty()) {
-            for (Attribute<Object, ?> otherAttribute : otherMeta.getAttributes()) {
-                @SuppressWarnings("unchecked")
-                Bindable<Object> otherBindable = (Bindable<Object>) otherAttribute;
+        final Map<Object, Map<String, List<Entity>>> relationships = new HashMap<>();
+        final Map<String, List<Entity>> prototype = getRelationshipPrototype(meta);
 
-                boolean assignable = type.isAssignableFrom(otherBindable.getBindableJavaType());
+        results.stream()
+               .map(result -> result.get(ID_ALIAS))
+               .forEach(identifier -> relationships.put(identifier, new HashMap<>(prototype)));
 
-                if (assignable) {
-                    String otherMappedBy = getMappedBy(otherAttribute);
+        return relationships;
+    }
 
-                    if (otherMappedBy.equals(attribute.getName())) {
-                        return otherAttribute;
-                    }
+    /**
+     * Split the keys into chunks of at most the largest IN-list size, padding
+     * each chunk to the nearest IN-list size by repeating its last key.
+     */
+    static List<List<Object>> getInListChunks(Collection<Object> keys) {
+        final int maxSize = IN_LIST_SIZES[IN_LIST_SIZES.length - 1];
+        final List<Object> remaining = new ArrayList<>(keys);
+        final List<List<Object>> chunks = new ArrayList<>(1 + remaining.size() / maxSize);
+
+        for (int start = 0; start < remaining.size(); start += maxSize) {
+            List<Object> chunk = new ArrayList<>(remaining.subList(start, Math.min(start + maxSize, remaining.size())));
+            int size = maxSize;
+
+            for (int candidate : IN_LIST_SIZES) {
+                if (candidate >= chunk.size()) {
+                    size = candidate;
+                    break;
                 }
             }
 
-            throw new IllegalStateException("No inverse relationship mapped for `" + attribute.getName() + "`");
-        }
-
-        return otherMeta.getAttribute(mappedBy);
-    }
+            Object padding = chunk.get(chunk.size() - 1);
 
-    String getMappedBy(Attribute<Object, ?> attribute) {
-        final String mappedBy;
-        AccessibleObject member = (AccessibleObject) attribute.getJavaMember();
+            while (chunk.size() < size) {
+                chunk.add(padding);
+            }
 
-        switch (attribute.getPersistentAttributeType()) {
-        case MANY_TO_MANY:
-            mappedBy = member.getAnnotation(ManyToMany.class).mappedBy();
-            break;
-        case ONE_TO_MANY:
-            mappedBy = member.getAnnotation(OneToMany.class).mappedBy();
-            break;
-        case ONE_TO_ONE:
-            mappedBy = member.getAnnotation(OneToOne.class).mappedBy();
-            break;
-        default:
-            mappedBy = "";
-            break;
+            chunks.add(chunk);
         }
 
-        return mappedBy;
+        return chunks;
     }
 
-    Map<Object, Map<String, List<Entity>>> initializeRelationships(List<Tuple> results, EntityMeta meta) {
-
-        final Map<Object, Map<String, List<Entity>>> relationships = new HashMap<>();
-        final Map<String, List<Entity>> prototype = meta.getRelationshipNames()
-                                                        .stream()
-                                                        .collect(Collectors.toMap(Function.identity(),
-                                                                                  name -> Entity.UNFETCHED_RELATIONSHIP));
-
-        results.stream()
-               .map(result -> result.get("root"))
-               .map(meta::getIdValue)
-               .forEach(identifier -> relationships.put(identifier, new HashMap<>(prototype)));
-
-        return relationships;
+    Map<String, List<Entity>> getRelationshipPrototype(EntityMeta meta) {
+        return meta.getRelationshipNames()
+                   .stream()
+                   .collect(Collectors.toMap(Function.identity(), name -> Entity.UNFETCHED_RELATIONSHIP));
     }
 
     boolean notFoundPrimaryResource(JsonValue dataEntry, EntityMeta relatedMeta, String relationshipName, InternalQuery params) {
@@ -724,23 +2105,17 @@ public class PersistenceController {
         return singular;
     }
 
-    Set<Entity> distinctRelated(Map<Object, Map<String, List<Entity>>> relationships) {
-        return relationships.values()
-                            .stream()
-                            .flatMap(map -> map.entrySet().stream())
-                            .flatMap(map -> map.getValue().stream())
-                            .collect(Collectors.toSet());
-    }
-
-    JsonArrayBuilder mapIncludedToJson(InternalQuery params, Set<Entity> included) {
+    JsonArrayBuilder mapIncludedToJson(InternalQuery params, Map<Entity, Map<String, List<Entity>>> included) {
         JsonArrayBuilder incl = Json.createArrayBuilder();
         Map<String, Object> related = new TreeMap<>();
 
         /*
          * For each of the included resources related to the primary resource type,
          * create the list of their own internal relationships and convert to JSON.
+         * Relationships retrieved by a nested include path are given with their data.
          * */
-        for (Entity includedEntity : included) {
+        for (Map.Entry<Entity, Map<String, List<Entity>>> entry : included.entrySet()) {
+            Entity includedEntity = entry.getKey();
             related.clear();
 
             includedEntity.getEntityMeta()
@@ -750,6 +2125,12 @@ public class PersistenceController {
                           .filter(Attribute::isAssociation)
                           .forEach(relationship -> related.put(relationship.getName(), relationship));
 
+            entry.getValue()
+                 .entrySet()
+                 .stream()
+                 .filter(relationship -> relationship.getValue() != Entity.UNFETCHED_RELATIONSHIP)
+                 .forEach(relationship -> related.put(relationship.getKey(), relationship.getValue()));
+
             incl.add(writer.toJson(includedEntity, related, params, params.getUriInfo()));
         }
 
@@ -0,0 +1,46 @@
+package io.xlate.jsonapi.rvp.internal.persistence.boundary;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.ParameterExpression;
+
+import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMeta;
+
+/**
+ * Values bound to the named parameters of a criteria query. Binding values as
+ * parameters rather than literals keeps the generated SQL identical for
+ * requests that differ only by their values, allowing the persistence provider
+ * to reuse its compiled query plan.
+ */
+class QueryParameters {
+
+    private final CriteriaBuilder builder;
+    private final Map<String, Object> values = new TreeMap<>();
+
+    QueryParameters(CriteriaBuilder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Create a named parameter expression and record the value to be bound to
+     * it.
+     *
+     * @param <T> type of the parameter
+     * @param name name of the parameter, unique within a query
+     * @param type Java type of the parameter (primitives are wrapped)
+     * @param value value to bind to the parameter
+     * @return the parameter expression
+     */
+    <T> ParameterExpression<T> bind(String name, Class<T> type, Object value) {
+        values.put(name, value);
+        return builder.parameter(EntityMeta.wrap(type), name);
+    }
+
+    <Q extends Query> Q applyTo(Q query) {
+        values.forEach(query::setParameter);
+        return query;
+    }
+}
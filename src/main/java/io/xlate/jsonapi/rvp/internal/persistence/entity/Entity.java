@@ -66,6 +66,11 @@ public class Entity {
     }
 
     public Object getAttribute(String name) {
+        if (name.indexOf('.') > 0 && attributes != null && attributes.containsKey(name)) {
+            // Attribute of a related resource selected as a sort key, e.g. `author.name`
+            return attributes.get(name);
+        }
+
         if (!entityMeta.hasAttribute(name)) {
             throw new IllegalArgumentException("No such attribute: " + name);
         }
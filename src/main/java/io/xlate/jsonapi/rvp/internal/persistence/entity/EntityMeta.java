@@ -8,6 +8,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.Arrays;
@@ -20,6 +21,7 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import jakarta.json.Json;
 import jakarta.persistence.metamodel.Attribute;
 import jakarta.persistence.metamodel.Attribute.PersistentAttributeType;
 import jakarta.persistence.metamodel.Bindable;
@@ -191,6 +193,11 @@ public class EntityMeta {
             return value -> safeParse(value, raw -> ((Method) methods.get("parse")).invoke(null, value));
         }
 
+        if (methods.containsKey("fromString")) {
+            // E.g. java.util.UUID
+            return value -> safeParse(value, raw -> ((Method) methods.get("fromString")).invoke(null, value));
+        }
+
         if (methods.containsKey("<init>")) {
             return value -> safeParse(value, raw -> Constructor.class.cast(methods.get("<init>")).newInstance(value));
         }
@@ -213,6 +220,10 @@ public class EntityMeta {
     }
 
     public boolean isMethodAllowed(String method) {
+        if (HttpMethod.HEAD.equals(method)) {
+            // HEAD is answered like GET, without the response document
+            method = HttpMethod.GET;
+        }
         return this.methodsAllowed.contains(method);
     }
 
@@ -234,6 +245,28 @@ public class EntityMeta {
         return (SingularAttribute<Object, ?>) attr;
     }
 
+    /**
+     * Get the attribute changed whenever the entity is modified: the
+     * configured last-modified attribute, otherwise the version attribute of
+     * the entity, if any.
+     *
+     * @return the version attribute or null when the entity has none
+     */
+    @SuppressWarnings("unchecked")
+    public SingularAttribute<Object, ?> getVersionAttribute() {
+        final String attributeName = configuredType.getLastModifiedAttribute();
+
+        if (attributeName != null) {
+            return (SingularAttribute<Object, ?>) entityType.getSingularAttribute(attributeName);
+        }
+
+        return (SingularAttribute<Object, ?>) entityType.getSingularAttributes()
+                                                        .stream()
+                                                        .filter(SingularAttribute::isVersion)
+                                                        .findFirst()
+                                                        .orElse(null);
+    }
+
     public Map<String, SingularAttribute<?, ?>> getAttributes() {
         return attributes;
     }
@@ -258,6 +291,91 @@ public class EntityMeta {
         return configuredType.getIdReader().apply(value);
     }
 
+    /**
+     * Convert a string value given in a request URI (e.g. a filter value) to
+     * the Java type of the named attribute, using the same readers used for
+     * attributes in request bodies.
+     *
+     * @param attributeName name of an attribute or the exposed id attribute
+     * @param value the value to convert
+     * @return the converted value
+     * @throws IllegalArgumentException when the value can not be converted to
+     *         the attribute's type
+     * @throws NoSuchElementException when the attribute does not exist
+     */
+    public Object readValue(String attributeName, String value) {
+        final SingularAttribute<?, ?> attribute;
+
+        if (attributes.containsKey(attributeName)) {
+            attribute = attributes.get(attributeName);
+        } else if (getExposedIdAttribute().getName().equals(attributeName)) {
+            attribute = getExposedIdAttribute();
+        } else {
+            throw new NoSuchElementException(attributeName);
+        }
+
+        final Class<?> type = attribute.getJavaType();
+        final Class<?> wrappedType = wrap(type);
+        final Object result;
+
+        if (String.class.equals(wrappedType)) {
+            result = value;
+        } else if (Boolean.class.equals(wrappedType)) {
+            result = readBoolean(value);
+        } else if (Character.class.equals(wrappedType)) {
+            result = value.length() == 1 ? Character.valueOf(value.charAt(0)) : null;
+        } else if (Number.class.isAssignableFrom(wrappedType)) {
+            result = readNumber(type, value);
+        } else {
+            result = readCustom(attributeName, value);
+        }
+
+        if (result == null || !wrappedType.isInstance(result)) {
+            throw new IllegalArgumentException("Invalid value for attribute `" + attributeName + "`: " + value);
+        }
+
+        return result;
+    }
+
+    Object readCustom(String attributeName, String value) {
+        try {
+            if (readers.containsKey(attributeName)) {
+                return readers.get(attributeName).apply(value);
+            }
+            return readId(value);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid value for attribute `" + attributeName + "`: " + value, e);
+        }
+    }
+
+    static Boolean readBoolean(String value) {
+        if ("true".equals(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equals(value)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    static Object readNumber(Class<?> type, String value) {
+        final BigDecimal number = new BigDecimal(value);
+        final Object result = ResourceObjectReader.readNumber(type, Json.createValue(number));
+
+        if (result instanceof Float || result instanceof Double || result instanceof BigDecimal) {
+            return result;
+        }
+
+        // Integral values must be represented exactly (no fraction, no overflow)
+        if (new BigDecimal(result.toString()).compareTo(number) != 0) {
+            return null;
+        }
+
+        return result;
+    }
+
     @SuppressWarnings("unchecked")
     public SingularAttribute<Object, ?> getIdAttribute() {
         Class<?> type = entityType.getIdType().getJavaType();
@@ -315,6 +433,100 @@ public class EntityMeta {
         return configuredType.getPrincipalNamePath();
     }
 
+    public JsonApiResourceType.TotalResults getTotalResults() {
+        return configuredType.getTotalResults();
+    }
+
+    public int getTotalResultsLimit() {
+        return configuredType.getTotalResultsLimit();
+    }
+
+    public JsonApiResourceType.RelationshipCounts getRelationshipCounts() {
+        return configuredType.getRelationshipCounts();
+    }
+
+    public boolean isReadOnly() {
+        return configuredType.isReadOnly();
+    }
+
+    public boolean isCacheable() {
+        return configuredType.isCacheable();
+    }
+
+    public boolean isReferencedById() {
+        return configuredType.isReferencedById() && getPrincipalNamePath() == null;
+    }
+
+    public long getResponseCacheTimeToLive() {
+        return configuredType.getResponseCacheTimeToLive();
+    }
+
+    public int getStreamingFetchSize() {
+        return configuredType.getStreamingFetchSize();
+    }
+
+    public int getMaxPageSize() {
+        return configuredType.getMaxPageSize();
+    }
+
+    public int getDefaultPageSize() {
+        return configuredType.getDefaultPageSize();
+    }
+
+    public int getMaxIncludes() {
+        return configuredType.getMaxIncludes();
+    }
+
+    public int getMaxFilterDepth() {
+        return configuredType.getMaxFilterDepth();
+    }
+
+    public int getMaxSortKeys() {
+        return configuredType.getMaxSortKeys();
+    }
+
+    public int getQueryTimeout() {
+        return configuredType.getQueryTimeout();
+    }
+
+    public boolean isCountedByDefault(String relationshipName) {
+        Set<String> counted = configuredType.getCountedRelationships();
+        return counted == null || counted.contains(relationshipName);
+    }
+
+    /**
+     * Determine whether a filter operator may be used with the named attribute
+     * or exposed id attribute.
+     *
+     * @param attributeName name of an attribute or the exposed id attribute
+     * @param operator the filter operator
+     * @return true when the operator is supported by the attribute
+     */
+    public boolean isFilterOperatorAllowed(String attributeName, JsonApiResourceType.FilterOperator operator) {
+        Map<String, Set<JsonApiResourceType.FilterOperator>> restricted = configuredType.getFilterOperators();
+        String key = attributeName;
+
+        if (!restricted.containsKey(key) && getExposedIdAttribute().getName().equals(attributeName)) {
+            key = "id";
+        }
+
+        return !restricted.containsKey(key) || restricted.get(key).contains(operator);
+    }
+
+    /**
+     * @param attributeName name of an attribute or the exposed id attribute
+     * @return the Java type of the attribute, primitive types are wrapped
+     */
+    public Class<?> getAttributeType(String attributeName) {
+        if (attributes.containsKey(attributeName)) {
+            return wrap(attributes.get(attributeName).getJavaType());
+        }
+        if (getExposedIdAttribute().getName().equals(attributeName)) {
+            return wrap(getExposedIdAttribute().getJavaType());
+        }
+        throw new NoSuchElementException(attributeName);
+    }
+
     public PropertyDescriptor getPropertyDescriptor(String name) {
         PropertyDescriptor descriptor = propertyDescriptors.get(name);
 
@@ -1,10 +1,18 @@
 package io.xlate.jsonapi.rvp.internal.persistence.entity;
 
+import java.lang.reflect.AccessibleObject;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.Bindable;
+import jakarta.persistence.metamodel.EntityType;
 import jakarta.persistence.metamodel.Metamodel;
 
 import io.xlate.jsonapi.rvp.JsonApiResourceType;
@@ -14,6 +22,11 @@ public class EntityMetamodel {
     private final Map<Class<?>, EntityMeta> classMetaMap;
     private final Map<String, EntityMeta> typeMetaMap;
 
+    /**
+     * Relationship graph, the relationships of each resource type by name.
+     */
+    private final Map<String, Map<String, EntityRelationship>> relationships;
+
     public EntityMetamodel(Class<?> resourceClass,
             Set<JsonApiResourceType<?>> resourceTypes,
             Metamodel model) {
@@ -31,6 +44,63 @@ public class EntityMetamodel {
             typeMetaMap.put(entry.getName(), meta);
             classMetaMap.put(entry.getResourceClass(), meta);
         }
+
+        relationships = new HashMap<>(typeMetaMap.size());
+
+        for (EntityMeta meta : typeMetaMap.values()) {
+            Map<String, EntityRelationship> edges = new HashMap<>(meta.getRelationships().size());
+
+            for (String relationshipName : meta.getRelationships().keySet()) {
+                edges.put(relationshipName, buildRelationship(meta, relationshipName));
+            }
+
+            relationships.put(meta.getResourceType(), Collections.unmodifiableMap(edges));
+        }
+    }
+
+    EntityRelationship buildRelationship(EntityMeta meta, String relationshipName) {
+        EntityType<Object> entityType = meta.getEntityType();
+        Attribute<Object, ?> attribute = entityType.getAttribute(relationshipName);
+        EntityMeta relatedMeta = getEntityMeta(meta.getRelatedEntityClass(relationshipName));
+        String mappedBy = getMappedBy(attribute);
+        Attribute<Object, ?> inverse = null;
+
+        if (mappedBy.isEmpty()) {
+            for (Attribute<Object, ?> otherAttribute : relatedMeta.getEntityType().getAttributes()) {
+                if (otherAttribute.isAssociation()
+                        && entityType.getJavaType().isAssignableFrom(Bindable.class.cast(otherAttribute).getBindableJavaType())
+                        && getMappedBy(otherAttribute).equals(relationshipName)) {
+                    inverse = otherAttribute;
+                    break;
+                }
+            }
+        } else {
+            inverse = relatedMeta.getEntityType().getAttribute(mappedBy);
+        }
+
+        return new EntityRelationship(meta, attribute, relatedMeta, inverse, mappedBy.isEmpty());
+    }
+
+    static String getMappedBy(Attribute<Object, ?> attribute) {
+        final String mappedBy;
+        AccessibleObject member = (AccessibleObject) attribute.getJavaMember();
+
+        switch (attribute.getPersistentAttributeType()) {
+        case MANY_TO_MANY:
+            mappedBy = member.getAnnotation(ManyToMany.class).mappedBy();
+            break;
+        case ONE_TO_MANY:
+            mappedBy = member.getAnnotation(OneToMany.class).mappedBy();
+            break;
+        case ONE_TO_ONE:
+            mappedBy = member.getAnnotation(OneToOne.class).mappedBy();
+            break;
+        default:
+            mappedBy = "";
+            break;
+        }
+
+        return mappedBy;
     }
 
     public EntityMeta getEntityMeta(String resourceType) {
@@ -50,4 +120,16 @@ public class EntityMetamodel {
         return classMetaMap.get(entityClass);
     }
 
+    /**
+     * Retrieve a relationship exposed by a resource type.
+     *
+     * @param meta the resource type
+     * @param relationshipName name of the relationship
+     * @return the relationship or null when the type does not expose a
+     *         relationship with the name
+     */
+    public EntityRelationship getRelationship(EntityMeta meta, String relationshipName) {
+        return relationships.get(meta.getResourceType()).get(relationshipName);
+    }
+
 }
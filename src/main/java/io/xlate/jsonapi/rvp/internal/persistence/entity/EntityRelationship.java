@@ -0,0 +1,81 @@
+package io.xlate.jsonapi.rvp.internal.persistence.entity;
+
+import jakarta.persistence.metamodel.Attribute;
+
+/**
+ * An edge of the relationship graph of the {@link EntityMetamodel}: a
+ * relationship exposed by a resource type along with the related resource
+ * type and the attribute mapping the relationship on the other side, if any.
+ */
+@SuppressWarnings("java:S1452") // Suppress Sonar warnings regarding generic wildcards
+public class EntityRelationship {
+
+    private final EntityMeta entityMeta;
+    private final Attribute<Object, ?> attribute;
+    private final EntityMeta relatedMeta;
+    private final Attribute<Object, ?> inverseAttribute;
+    private final boolean owningSide;
+
+    EntityRelationship(EntityMeta entityMeta,
+            Attribute<Object, ?> attribute,
+            EntityMeta relatedMeta,
+            Attribute<Object, ?> inverseAttribute,
+            boolean owningSide) {
+        this.entityMeta = entityMeta;
+        this.attribute = attribute;
+        this.relatedMeta = relatedMeta;
+        this.inverseAttribute = inverseAttribute;
+        this.owningSide = owningSide;
+    }
+
+    public String getName() {
+        return attribute.getName();
+    }
+
+    /**
+     * @return the resource type exposing the relationship
+     */
+    public EntityMeta getEntityMeta() {
+        return entityMeta;
+    }
+
+    /**
+     * @return the attribute joined from the resource type to the related type
+     */
+    public Attribute<Object, ?> getAttribute() {
+        return attribute;
+    }
+
+    public EntityMeta getRelatedMeta() {
+        return relatedMeta;
+    }
+
+    public boolean isCollection() {
+        return attribute.isCollection();
+    }
+
+    /**
+     * @return true when the relationship is not mapped by the attribute of the
+     *         related type, i.e. the relationship has no `mappedBy`
+     */
+    public boolean isOwningSide() {
+        return owningSide;
+    }
+
+    public boolean hasInverse() {
+        return inverseAttribute != null;
+    }
+
+    /**
+     * @return the attribute of the related type mapping the other side of the
+     *         relationship, joined from the related type to the resource type
+     * @throws IllegalStateException when the relationship is unidirectional
+     */
+    public Attribute<Object, ?> getInverseAttribute() {
+        if (inverseAttribute == null) {
+            throw new IllegalStateException("No inverse relationship mapped for `" + getName() + "`");
+        }
+
+        return inverseAttribute;
+    }
+}
@@ -5,7 +5,11 @@ import static io.xlate.jsonapi.rvp.internal.rs.entity.JsonApiError.relationshipP
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -13,6 +17,7 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import jakarta.json.Json;
 import jakarta.json.JsonArray;
@@ -22,8 +27,9 @@ import jakarta.json.JsonObject;
 import jakarta.json.JsonString;
 import jakarta.json.JsonValue;
 import jakarta.json.JsonValue.ValueType;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceUtil;
 import jakarta.persistence.metamodel.Attribute;
-import jakarta.persistence.metamodel.Bindable;
 import jakarta.persistence.metamodel.EntityType;
 
 import io.xlate.jsonapi.rvp.JsonApiStatus;
@@ -31,12 +37,14 @@ import io.xlate.jsonapi.rvp.internal.JsonApiErrorException;
 import io.xlate.jsonapi.rvp.internal.persistence.boundary.PersistenceController;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMeta;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMetamodel;
+import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityRelationship;
 import io.xlate.jsonapi.rvp.internal.rs.entity.InternalContext;
 import io.xlate.jsonapi.rvp.internal.rs.entity.JsonApiError;
 
 public class ResourceObjectReader {
 
     private static final Logger LOGGER = Logger.getLogger(ResourceObjectReader.class.getName());
+    private static final PersistenceUtil PERSISTENCE_UTIL = Persistence.getPersistenceUtil();
 
     public static final Set<Class<?>> NUMBER_PRIMITIVES = Set.of(Byte.TYPE,
                                                                  Character.TYPE,
@@ -104,6 +112,10 @@ public class ResourceObjectReader {
 
         JsonObject relationships = data.getJsonObject("relationships");
         JsonArrayBuilder errors = Json.createArrayBuilder();
+        Map<String, Map<String, Object>> resolved = findRelated(persistence,
+                                                                context,
+                                                                model.getEntityMeta(entity.getClass()),
+                                                                relationships);
 
         for (Entry<String, JsonValue> entry : relationships.entrySet()) {
             String fieldName = entry.getKey();
@@ -111,9 +123,9 @@ public class ResourceObjectReader {
 
             // Validation already completed in JsonApiRequestValidator
             if (rootType.getAttribute(fieldName).isCollection()) {
-                readRelationshipArray(persistence, context, entity, fieldName, relationshipData.asJsonArray(), errors);
+                readRelationshipArray(resolved, entity, fieldName, relationshipData.asJsonArray(), errors);
             } else {
-                readRelationshipObject(persistence, context, entity, fieldName, relationshipData, errors);
+                readRelationshipObject(resolved, entity, fieldName, relationshipData, errors);
             }
         }
 
@@ -124,8 +136,55 @@ public class ResourceObjectReader {
         }
     }
 
-    void readRelationshipArray(PersistenceController persistence,
-                               InternalContext context,
+    /**
+     * Resolve the resource identifiers of all relationships in a request,
+     * retrieving the resources of each type together rather than one by one.
+     * References are only used for the types given solely in relationships
+     * owned by the entity, the related resources are not modified then.
+     *
+     * @return the resources found, by type and id
+     */
+    Map<String, Map<String, Object>> findRelated(PersistenceController persistence,
+                                                 InternalContext context,
+                                                 EntityMeta meta,
+                                                 JsonObject relationships) {
+
+        Map<String, Set<String>> identifiers = new HashMap<>();
+        Set<String> loadedTypes = new HashSet<>();
+
+        relationships.forEach((fieldName, relationship) -> {
+            EntityRelationship entityRelationship = model.getRelationship(meta, fieldName);
+            boolean owned = entityRelationship != null && entityRelationship.isOwningSide();
+
+            resourceIdentifiers(relationship).forEach(resourceId -> {
+                String type = resourceId.getString("type");
+                identifiers.computeIfAbsent(type, k -> new LinkedHashSet<>()).add(resourceId.getString("id"));
+
+                if (!owned) {
+                    loadedTypes.add(type);
+                }
+            });
+        });
+
+        Map<String, Map<String, Object>> resolved = new HashMap<>(identifiers.size());
+        identifiers.forEach((type, ids) -> resolved.put(type, persistence.findObjects(context,
+                                                                                     type,
+                                                                                     ids,
+                                                                                     !loadedTypes.contains(type))));
+        return resolved;
+    }
+
+    static Stream<JsonObject> resourceIdentifiers(JsonValue relationship) {
+        JsonValue relationshipData = relationship.asJsonObject().get("data");
+
+        if (relationshipData.getValueType() == ValueType.ARRAY) {
+            return relationshipData.asJsonArray().stream().map(JsonValue::asJsonObject);
+        }
+
+        return relationshipData.getValueType() == ValueType.NULL ? Stream.empty() : Stream.of(relationshipData.asJsonObject());
+    }
+
+    void readRelationshipArray(Map<String, Map<String, Object>> resolved,
                                Object entity,
                                String fieldName,
                                JsonArray relationshipData,
@@ -133,15 +192,14 @@ public class ResourceObjectReader {
 
         Collection<Object> replacements = relationshipData.stream()
                         .map(JsonValue::asJsonObject)
-                        .map(entry -> findReplacement(persistence, context, entry, fieldName, errors))
+                        .map(entry -> findReplacement(resolved, entry, fieldName, errors))
                         .filter(Objects::nonNull)
                         .collect(Collectors.toList());
 
         putPluralRelationship(entity, model.getEntityMeta(entity.getClass()), fieldName, replacements);
     }
 
-    void readRelationshipObject(PersistenceController persistence,
-                                InternalContext context,
+    void readRelationshipObject(Map<String, Map<String, Object>> resolved,
                                 Object entity,
                                 String fieldName,
                                 JsonValue relationshipData,
@@ -152,7 +210,7 @@ public class ResourceObjectReader {
         if (relationshipData.getValueType() == ValueType.NULL) {
             replacement = null;
         } else {
-            replacement = findReplacement(persistence, context, relationshipData.asJsonObject(), fieldName, errors);
+            replacement = findReplacement(resolved, relationshipData.asJsonObject(), fieldName, errors);
 
             if (replacement == null) {
                 return;
@@ -162,10 +220,10 @@ public class ResourceObjectReader {
         putSingularRelationship(entity, model.getEntityMeta(entity.getClass()), fieldName, replacement);
     }
 
-    Object findReplacement(PersistenceController persistence, InternalContext context, JsonObject resourceId, String fieldName, JsonArrayBuilder errors) {
+    Object findReplacement(Map<String, Map<String, Object>> resolved, JsonObject resourceId, String fieldName, JsonArrayBuilder errors) {
         final String type = resourceId.getString("type");
         final String id = resourceId.getString("id");
-        final Object replacement = persistence.findObject(context, type, id);
+        final Object replacement = resolved.getOrDefault(type, Collections.emptyMap()).get(id);
 
         if (replacement == null) {
             var error = new JsonApiError("Invalid relationship",
@@ -185,7 +243,19 @@ public class ResourceObjectReader {
 
     void readAttribute(Entry<String, JsonValue> attribute, Object bean, EntityMeta meta) {
         String jsonKey = attribute.getKey();
-        JsonValue jsonValue = attribute.getValue();
+        meta.setPropertyValue(bean, jsonKey, readValue(meta, jsonKey, attribute.getValue()));
+    }
+
+    /**
+     * Convert a JSON value to the Java type of the named property of the
+     * entity described by meta.
+     *
+     * @param meta entity metadata
+     * @param jsonKey name of the entity property
+     * @param jsonValue value to convert
+     * @return the converted value
+     */
+    public Object readValue(EntityMeta meta, String jsonKey, JsonValue jsonValue) {
         Class<?> propertyType = meta.getPropertyDescriptor(jsonKey).getPropertyType();
         ValueType jsonValueType = jsonValue.getValueType();
         Object value;
@@ -197,8 +267,7 @@ public class ResourceObjectReader {
         } else if (classMatch(propertyType, Boolean.class, Boolean.TYPE)) {
             value = Boolean.valueOf(JsonValue.TRUE.equals(jsonValue));
         } else if (Number.class.isAssignableFrom(propertyType) || propertyType.isPrimitive()) {
-            value = NUMBER_MAPPERS.getOrDefault(propertyType, JsonNumber::numberValue)
-                                  .apply((JsonNumber) jsonValue);
+            value = readNumber(propertyType, (JsonNumber) jsonValue);
         } else if (meta.getReaders().containsKey(jsonKey)) {
             value = meta.getReaders().get(jsonKey).apply(((JsonString) jsonValue).getString());
         } else {
@@ -206,7 +275,18 @@ public class ResourceObjectReader {
             value = null;
         }
 
-        meta.setPropertyValue(bean, jsonKey, value);
+        return value;
+    }
+
+    /**
+     * Convert a JSON number to the given Java number type.
+     *
+     * @param type the target type, a {@link Number} or primitive
+     * @param jsonValue number to convert
+     * @return the converted value
+     */
+    public static Object readNumber(Class<?> type, JsonNumber jsonValue) {
+        return NUMBER_MAPPERS.getOrDefault(type, JsonNumber::numberValue).apply(jsonValue);
     }
 
     boolean classMatch(Class<?> propertyType, Class<?> wrapper, Class<?> primitive) {
@@ -214,6 +294,7 @@ public class ResourceObjectReader {
     }
 
     void putPluralRelationship(Object bean, EntityMeta meta, String relationshipName, Collection<Object> values) {
+        EntityRelationship relationship = model.getRelationship(meta, relationshipName);
         Collection<Object> current = meta.getPropertyValue(bean, relationshipName);
         Iterator<Object> cursor = current.iterator();
 
@@ -222,49 +303,59 @@ public class ResourceObjectReader {
 
             if (!values.contains(related)) {
                 cursor.remove();
-                updateRelated(related, bean, RelatedModelAction.REMOVE);
+                updateRelated(related, bean, relationship, RelatedModelAction.REMOVE);
             }
         }
 
         for (Object related : values) {
             if (!current.contains(related)) {
                 current.add(related);
-                updateRelated(related, bean, RelatedModelAction.ADD);
+                updateRelated(related, bean, relationship, RelatedModelAction.ADD);
             }
         }
     }
 
     void putSingularRelationship(Object bean, EntityMeta meta, String relationshipName, Object replacement) {
+        EntityRelationship relationship = model.getRelationship(meta, relationshipName);
         Object current = meta.getPropertyValue(bean, relationshipName);
 
         if (current != null) {
             // Not currently associated
-            updateRelated(current, bean, RelatedModelAction.REMOVE);
+            updateRelated(current, bean, relationship, RelatedModelAction.REMOVE);
         }
 
         meta.setPropertyValue(bean, relationshipName, replacement);
 
         if (replacement != null) {
             // No replacement to add to the association
-            updateRelated(replacement, bean, RelatedModelAction.ADD);
+            updateRelated(replacement, bean, relationship, RelatedModelAction.ADD);
         }
     }
 
-    void updateRelated(Object entity, Object related, RelatedModelAction action) {
+    /**
+     * Update the other side of a bidirectional relationship in the related
+     * entity to match the change made to the relationship of the bean. An
+     * entity not yet loaded, e.g. a reference, is left as is when the bean
+     * owns the relationship, its other side is read from the database when
+     * it is loaded.
+     */
+    void updateRelated(Object entity, Object related, EntityRelationship relationship, RelatedModelAction action) {
+        if (relationship == null || !relationship.hasInverse()) {
+            return;
+        }
+
+        if (relationship.isOwningSide() && !PERSISTENCE_UTIL.isLoaded(entity)) {
+            return;
+        }
+
         EntityMeta meta = model.getEntityMeta(entity.getClass());
+        Attribute<Object, ?> inverse = relationship.getInverseAttribute();
 
-        meta.getEntityType()
-            .getAttributes()
-            .stream()
-            .filter(Attribute::isAssociation)
-            .filter(a -> ((Bindable<?>) a).getBindableJavaType().equals(related.getClass()))
-            .forEach(a -> {
-                if (a.isCollection()) {
-                    updateRelatedCollection(entity, meta, a, related, action);
-                } else {
-                    updateRelatedObject(entity, meta, a, related, action);
-                }
-            });
+        if (inverse.isCollection()) {
+            updateRelatedCollection(entity, meta, inverse, related, action);
+        } else {
+            updateRelatedObject(entity, meta, inverse, related, action);
+        }
     }
 
     @SuppressWarnings({ "rawtypes", "java:S3740" })
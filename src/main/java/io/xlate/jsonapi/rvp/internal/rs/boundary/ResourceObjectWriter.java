@@ -9,6 +9,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -29,6 +30,7 @@ import io.xlate.jsonapi.rvp.internal.persistence.entity.Entity;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMeta;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMetamodel;
 import io.xlate.jsonapi.rvp.internal.rs.entity.InternalQuery;
+import io.xlate.jsonapi.rvp.internal.rs.entity.PageCursor;
 
 public class ResourceObjectWriter {
 
@@ -51,10 +53,25 @@ public class ResourceObjectWriter {
                                              String id,
                                              String relationshipName,
                                              String relationshipType,
-                                             Set<String> relatedIds) {
+                                             Collection<String> relatedIds) {
+        return toJsonApiRelationships(uriInfo, resourceType, id, relationshipName, relationshipType, relatedIds, null, null);
+    }
+
+    public JsonObject toJsonApiRelationships(UriInfo uriInfo,
+                                             String resourceType,
+                                             String id,
+                                             String relationshipName,
+                                             String relationshipType,
+                                             Collection<String> relatedIds,
+                                             JsonObject meta,
+                                             String nextLink) {
 
         JsonObjectBuilder response = topLevelBuilder();
-        addLinks(response, () -> getRelationshipLink(uriInfo, resourceType, id, relationshipName));
+        addLinks(response, () -> getRelationshipLinks(uriInfo, resourceType, id, relationshipName, nextLink));
+
+        if (meta != null) {
+            response.add("meta", meta);
+        }
 
         JsonArrayBuilder relationships = Json.createArrayBuilder();
 
@@ -68,6 +85,26 @@ public class ResourceObjectWriter {
         return response.build();
     }
 
+    /**
+     * Build the links of a relationship document.
+     *
+     * @param nextLink link to the following page of the linkage, may be null
+     * @return the `self` and `related` links, and the `next` link when given
+     */
+    public JsonObject getRelationshipLinks(UriInfo uriInfo,
+                                           String resourceType,
+                                           String id,
+                                           String relationshipName,
+                                           String nextLink) {
+        JsonObject links = getRelationshipLink(uriInfo, resourceType, id, relationshipName);
+
+        if (nextLink == null) {
+            return links;
+        }
+
+        return Json.createObjectBuilder(links).add("next", nextLink).build();
+    }
+
     public JsonObject toJsonApiResource(Entity bean, UriInfo uriInfo) {
         EntityMeta meta = bean.getEntityMeta();
         Map<String, Object> related = new TreeMap<>();
@@ -127,39 +164,105 @@ public class ResourceObjectWriter {
             .stream()
             .filter(name -> params == null || params.includeField(bean.getType(), name))
             .sorted()
-            .forEach(key -> {
-                Object value = bean.getAttribute(key);
-
-                if (value == null) {
-                    attributes.addNull(key);
-                } else if (Date.class.isAssignableFrom(value.getClass())) {
-                    OffsetDateTime odt = ((Date) value).toInstant().atOffset(ZoneOffset.UTC);
-                    attributes.add(key, odt.format(DateTimeFormatter.ISO_DATE_TIME));
-                } else if (OffsetDateTime.class.isAssignableFrom(value.getClass())) {
-                    OffsetDateTime odt = ((OffsetDateTime) value).toInstant().atOffset(ZoneOffset.UTC);
-                    attributes.add(key, odt.format(DateTimeFormatter.ISO_DATE_TIME));
-                } else if (Boolean.class.isAssignableFrom(value.getClass())) {
-                    attributes.add(key, (Boolean) value);
-                } else if (BigDecimal.class.isAssignableFrom(value.getClass())) {
-                    attributes.add(key, (BigDecimal) value);
-                } else if (BigInteger.class.isAssignableFrom(value.getClass())) {
-                    attributes.add(key, (BigInteger) value);
-                } else if (Long.class.isAssignableFrom(value.getClass())) {
-                    attributes.add(key, (Long) value);
-                } else if (Integer.class.isAssignableFrom(value.getClass())) {
-                    attributes.add(key, (Integer) value);
-                } else if (Double.class.isAssignableFrom(value.getClass())) {
-                    attributes.add(key, (Double) value);
-                } else if (Float.class.isAssignableFrom(value.getClass())) {
-                    attributes.add(key, (Float) value);
-                } else {
-                    attributes.add(key, String.valueOf(value));
-                }
-            });
+            .forEach(key -> addAttribute(attributes, key, bean.getAttribute(key)));
 
         return attributes.build();
     }
 
+    static void addAttribute(JsonObjectBuilder attributes, String key, Object value) {
+        if (value == null) {
+            attributes.addNull(key);
+        } else if (Date.class.isAssignableFrom(value.getClass())) {
+            OffsetDateTime odt = ((Date) value).toInstant().atOffset(ZoneOffset.UTC);
+            attributes.add(key, odt.format(DateTimeFormatter.ISO_DATE_TIME));
+        } else if (OffsetDateTime.class.isAssignableFrom(value.getClass())) {
+            OffsetDateTime odt = ((OffsetDateTime) value).toInstant().atOffset(ZoneOffset.UTC);
+            attributes.add(key, odt.format(DateTimeFormatter.ISO_DATE_TIME));
+        } else if (Boolean.class.isAssignableFrom(value.getClass())) {
+            attributes.add(key, (Boolean) value);
+        } else if (BigDecimal.class.isAssignableFrom(value.getClass())) {
+            attributes.add(key, (BigDecimal) value);
+        } else if (BigInteger.class.isAssignableFrom(value.getClass())) {
+            attributes.add(key, (BigInteger) value);
+        } else if (Long.class.isAssignableFrom(value.getClass())) {
+            attributes.add(key, (Long) value);
+        } else if (Integer.class.isAssignableFrom(value.getClass())) {
+            attributes.add(key, (Integer) value);
+        } else if (Double.class.isAssignableFrom(value.getClass())) {
+            attributes.add(key, (Double) value);
+        } else if (Float.class.isAssignableFrom(value.getClass())) {
+            attributes.add(key, (Float) value);
+        } else {
+            attributes.add(key, String.valueOf(value));
+        }
+    }
+
+    /**
+     * Build the cursor for the resource, i.e. the position of the resource
+     * given the sort keys requested by the client.
+     *
+     * @param bean the last resource on a page of results
+     * @param params the query parameters
+     * @return opaque cursor token to retrieve the page following the resource
+     */
+    public String getCursor(Entity bean, InternalQuery params) {
+        JsonObjectBuilder keys = Json.createObjectBuilder();
+
+        for (String sortKey : params.getSort()) {
+            String attribute = sortKey.startsWith("-") ? sortKey.substring(1) : sortKey;
+            addAttribute(keys, attribute, bean.getAttribute(attribute));
+        }
+
+        addAttribute(keys, "id", bean.getId());
+
+        return PageCursor.encode(keys.build());
+    }
+
+    /**
+     * Build a cursor from the key values of the last resource on a page.
+     *
+     * @param keys the sort key values followed by the `id` of the resource
+     * @return opaque cursor token to retrieve the page following the resource
+     */
+    public String getCursor(Map<String, Object> keys) {
+        JsonObjectBuilder cursor = Json.createObjectBuilder();
+        keys.forEach((key, value) -> addAttribute(cursor, key, value));
+        return PageCursor.encode(cursor.build());
+    }
+
+    /**
+     * Build the link to the page following the cursor: the request URI with
+     * the cursor and the size of the current page in place of the other
+     * paging parameters. The remaining parameters are given to the builder as
+     * template values, so braces in them are encoded rather than taken for
+     * URI templates.
+     */
+    public String getNextLink(UriInfo uriInfo, String cursor, int limit) {
+        UriBuilder next = uriInfo.getRequestUriBuilder().replaceQuery(null);
+        Map<String, Object> templateValues = new HashMap<>();
+
+        // Parameters are sorted by name for a stable link
+        new TreeMap<>(uriInfo.getQueryParameters())
+               .entrySet()
+               .stream()
+               .filter(param -> !param.getKey().startsWith("page[")
+                       || InternalQuery.PARAM_PAGE_TOTAL.equals(param.getKey()))
+               .forEach(param -> {
+                   String name = "p" + templateValues.size();
+                   templateValues.put(name, param.getKey());
+
+                   for (String value : param.getValue()) {
+                       String valueName = "p" + templateValues.size();
+                       templateValues.put(valueName, value);
+                       next.queryParam('{' + name + '}', '{' + valueName + '}');
+                   }
+               });
+
+        next.replaceQueryParam(InternalQuery.PARAM_PAGE_CURSOR, cursor);
+        next.replaceQueryParam(InternalQuery.PARAM_PAGE_LIMIT, limit);
+        return next.buildFromMap(templateValues).toString();
+    }
+
     JsonObject getRelationships(Entity bean,
                                 Map<String, Object> related,
                                 InternalQuery params,
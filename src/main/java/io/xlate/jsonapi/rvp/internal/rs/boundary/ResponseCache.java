@@ -0,0 +1,199 @@
+package io.xlate.jsonapi.rvp.internal.rs.boundary;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.LongSupplier;
+
+import jakarta.ws.rs.core.EntityTag;
+
+/**
+ * Bounded cache of serialized GET response documents. Entries are evicted in
+ * least-recently-used order when the estimated size of the cached documents
+ * exceeds the configured number of bytes, expire after their time to live,
+ * and are invalidated when a resource type they depend on is modified.
+ * Documents read before such a modification are not added, see
+ * {@link #getGeneration()}.
+ */
+public class ResponseCache {
+
+    /**
+     * Caches are shared by all resource instances using the same persistence
+     * unit, represented by the key object (e.g. the EntityManagerFactory).
+     */
+    private static final Map<Object, ResponseCache> CACHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public static class CachedResponse {
+        final String entity;
+        final EntityTag etag;
+        final Set<String> resourceTypes;
+        final long size;
+        final long expiresAt;
+
+        CachedResponse(String entity, EntityTag etag, Set<String> resourceTypes, long expiresAt) {
+            this.entity = entity;
+            this.etag = etag;
+            this.resourceTypes = resourceTypes;
+            // Two bytes per character held in memory
+            this.size = 2L * entity.length();
+            this.expiresAt = expiresAt;
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public EntityTag getEtag() {
+            return etag;
+        }
+    }
+
+    private final long maxBytes;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private long generation = 0;
+    /**
+     * The generation in which each resource type was last invalidated.
+     */
+    private final Map<String, Long> invalidated = new HashMap<>();
+
+    ResponseCache(long maxBytes, LongSupplier clock) {
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
+
+    /**
+     * Retrieve the cache shared by resources using the persistence unit
+     * identified by the key, creating it when necessary.
+     *
+     * @param key object identifying the persistence unit
+     * @param maxBytes the size of the cache, used when the cache is created
+     * @return the shared cache
+     */
+    public static ResponseCache forKey(Object key, long maxBytes) {
+        return CACHES.computeIfAbsent(key, k -> new ResponseCache(maxBytes, System::currentTimeMillis));
+    }
+
+    /**
+     * Retrieve the cache shared by resources using the persistence unit
+     * identified by the key, if one has been created.
+     *
+     * @param key object identifying the persistence unit
+     * @return the shared cache or null
+     */
+    public static ResponseCache getIfPresent(Object key) {
+        return CACHES.get(key);
+    }
+
+    /**
+     * Retrieve the current generation of the cache, incremented by each
+     * invalidation. Requests obtain the generation before reading the
+     * document they may add to the cache.
+     *
+     * @return the current generation
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized CachedResponse get(String key) {
+        CachedResponse entry = entries.get(key);
+
+        if (entry != null && entry.expiresAt <= clock.getAsLong()) {
+            remove(key);
+            entry = null;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Add a response to the cache.
+     *
+     * @param key the normalized request
+     * @param entity the serialized response document
+     * @param etag entity tag of the response document
+     * @param resourceTypes types of the resources the document was built
+     *        from, used to invalidate the entry
+     * @param timeToLive number of milliseconds the entry may be used
+     * @param readGeneration the {@link #getGeneration() generation} obtained
+     *        before the document was read
+     * @return the new entry
+     */
+    public synchronized CachedResponse put(String key,
+                                           String entity,
+                                           EntityTag etag,
+                                           Set<String> resourceTypes,
+                                           long timeToLive,
+                                           long readGeneration) {
+
+        CachedResponse entry = new CachedResponse(entity, etag, resourceTypes, clock.getAsLong() + timeToLive);
+
+        if (entry.size > maxBytes) {
+            // Never cached, would evict everything else
+            return entry;
+        }
+
+        for (String resourceType : resourceTypes) {
+            if (invalidated.getOrDefault(resourceType, 0L) > readGeneration) {
+                // Not cached, the document may predate the invalidation
+                return entry;
+            }
+        }
+
+        remove(key);
+        entries.put(key, entry);
+        bytes += entry.size;
+
+        Iterator<CachedResponse> eldest = entries.values().iterator();
+
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().size;
+            eldest.remove();
+        }
+
+        return entry;
+    }
+
+    /**
+     * Remove the entries built from resources of the given type. Documents of
+     * the type read before the invalidation are not added afterwards.
+     *
+     * @param resourceType type of the modified resources
+     */
+    public synchronized void invalidate(String resourceType) {
+        invalidated.put(resourceType, ++generation);
+
+        Iterator<CachedResponse> cursor = entries.values().iterator();
+
+        while (cursor.hasNext()) {
+            CachedResponse entry = cursor.next();
+
+            if (entry.resourceTypes.contains(resourceType)) {
+                bytes -= entry.size;
+                cursor.remove();
+            }
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    private void remove(String key) {
+        CachedResponse previous = entries.remove(key);
+
+        if (previous != null) {
+            bytes -= previous.size;
+        }
+    }
+}
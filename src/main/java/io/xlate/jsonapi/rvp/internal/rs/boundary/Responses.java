@@ -1,8 +1,21 @@
 package io.xlate.jsonapi.rvp.internal.rs.boundary;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.Collection;
+import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,14 +29,18 @@ import jakarta.json.JsonArray;
 import jakarta.json.JsonArrayBuilder;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonWriter;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ElementKind;
 import jakarta.ws.rs.core.CacheControl;
 import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.ResponseBuilder;
 import jakarta.ws.rs.core.Response.Status;
 import jakarta.ws.rs.core.Response.StatusType;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriBuilder;
 import jakarta.ws.rs.core.UriInfo;
 
@@ -36,6 +53,10 @@ import io.xlate.jsonapi.rvp.internal.rs.entity.JsonApiError;
 public class Responses {
 
     private static final Logger logger = Logger.getLogger(Responses.class.getName());
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int DIGEST_TAG_BYTES = 16;
+
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
 
     static class Error {
         final String message;
@@ -50,8 +71,115 @@ public class Responses {
     private Responses() {
     }
 
+    /**
+     * A response document serialized together with the strong entity tag
+     * digested from its bytes.
+     */
+    public static class SerializedEntity {
+        final String entity;
+        final EntityTag etag;
+
+        SerializedEntity(String entity, EntityTag etag) {
+            this.entity = entity;
+            this.etag = etag;
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public EntityTag getEtag() {
+            return etag;
+        }
+    }
+
     public static void ok(InternalContext context, CacheControl cacheControl, JsonObject entity) {
-        EntityTag etag = new EntityTag(Integer.toString(entity.hashCode()));
+        SerializedEntity serialized = serialize(entity);
+        ok(context, cacheControl, serialized.getEtag(), serialized.getEntity());
+    }
+
+    /**
+     * Serialize a document, computing its entity tag from the bytes as they
+     * are written rather than by traversing the document again.
+     *
+     * @param entity the document
+     * @return the serialized document and its entity tag
+     */
+    public static SerializedEntity serialize(JsonObject entity) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DigestOutputStream output = digest(buffer);
+
+        try (JsonWriter writer = Json.createWriter(output)) {
+            writer.writeObject(entity);
+        }
+
+        return new SerializedEntity(buffer.toString(StandardCharsets.UTF_8), digestTag(output));
+    }
+
+    /**
+     * Wrap an output stream to digest the bytes of a document as they are
+     * written, e.g. by a writer streaming the document without building it
+     * in memory. The entity tag is available from
+     * {@link #digestTag(DigestOutputStream)} once the document is complete.
+     *
+     * @param output the stream receiving the document
+     * @return the digesting stream
+     */
+    public static DigestOutputStream digest(OutputStream output) {
+        try {
+            return new DigestOutputStream(output, MessageDigest.getInstance(DIGEST_ALGORITHM));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports the algorithm
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Build a strong entity tag from the first 128 bits of the digest of the
+     * bytes written to the stream.
+     *
+     * @param output the digesting stream
+     * @return the entity tag
+     */
+    public static EntityTag digestTag(DigestOutputStream output) {
+        byte[] digest = output.getMessageDigest().digest();
+        StringBuilder value = new StringBuilder(DIGEST_TAG_BYTES * 2);
+
+        for (int i = 0; i < DIGEST_TAG_BYTES; i++) {
+            value.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+            value.append(Character.forDigit(digest[i] & 0xF, 16));
+        }
+
+        return new EntityTag(value.toString());
+    }
+
+    /**
+     * Respond with a document already serialized, e.g. from the response
+     * cache, and its entity tag.
+     */
+    public static void ok(InternalContext context, CacheControl cacheControl, ResponseCache.CachedResponse entity) {
+        ok(context, cacheControl, entity.getEtag(), entity.getEntity());
+    }
+
+    /**
+     * Give the `meta.totalResults` of a document in the `X-Total-Count`
+     * header, the only count received by HEAD requests.
+     */
+    public static void totalCount(InternalContext context, JsonObject entity) {
+        JsonObject meta = entity.getJsonObject("meta");
+
+        if (meta != null && meta.containsKey("totalResults")) {
+            context.getResponseBuilder().header(TOTAL_COUNT_HEADER, meta.get("totalResults").toString());
+        }
+    }
+
+    public static void totalCount(InternalContext context, ResponseCache.CachedResponse entity) {
+        try (JsonReader reader = Json.createReader(new StringReader(entity.getEntity()))) {
+            totalCount(context, reader.readObject());
+        }
+    }
+
+    public static void ok(InternalContext context, CacheControl cacheControl, EntityTag etag, Object entity) {
         ResponseBuilder builder;
         builder = context.getRequest().evaluatePreconditions(etag);
 
@@ -64,6 +192,84 @@ public class Responses {
         context.setResponseBuilder(builder);
     }
 
+    /**
+     * Build the entity tag of a document identified by the version of its
+     * resource. The variant distinguishes the representations of the same
+     * version, e.g. with different sparse fieldsets.
+     *
+     * @param version value of the version attribute of the resource
+     * @param variant normalized query parameters of the request
+     * @return the entity tag
+     */
+    public static EntityTag versionTag(Object version, String variant) {
+        Date lastModified = lastModified(version);
+        String value = lastModified != null ? Long.toString(lastModified.getTime()) : String.valueOf(version);
+        return new EntityTag(value + '-' + Integer.toHexString(variant.hashCode()));
+    }
+
+    /**
+     * Convert the value of a version attribute holding a date or time to the
+     * last-modified date of a resource.
+     *
+     * @param version value of the version attribute of the resource
+     * @return the last-modified date or null when the version is not a date or
+     *         time
+     */
+    public static Date lastModified(Object version) {
+        final Instant instant;
+
+        if (version instanceof Date) {
+            instant = ((Date) version).toInstant();
+        } else if (version instanceof Instant) {
+            instant = (Instant) version;
+        } else if (version instanceof OffsetDateTime) {
+            instant = ((OffsetDateTime) version).toInstant();
+        } else if (version instanceof ZonedDateTime) {
+            instant = ((ZonedDateTime) version).toInstant();
+        } else if (version instanceof LocalDateTime) {
+            instant = ((LocalDateTime) version).atZone(ZoneId.systemDefault()).toInstant();
+        } else {
+            instant = null;
+        }
+
+        return instant != null ? Date.from(instant) : null;
+    }
+
+    /**
+     * Evaluate the request preconditions against the version of the requested
+     * resource, responding when the client's copy is current.
+     *
+     * @return true if a response was set, e.g. 304 Not Modified
+     */
+    public static boolean notModified(InternalContext context, CacheControl cacheControl, EntityTag etag, Date lastModified) {
+        Request request = context.getRequest();
+        ResponseBuilder builder;
+
+        if (lastModified != null) {
+            builder = request.evaluatePreconditions(lastModified, etag);
+        } else {
+            builder = request.evaluatePreconditions(etag);
+        }
+
+        if (builder != null) {
+            builder.cacheControl(cacheControl);
+            context.setResponseBuilder(builder);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Respond with an entity streamed to the client. Preconditions are not
+     * evaluated since the entity is not known before it is written.
+     */
+    public static void ok(InternalContext context, CacheControl cacheControl, StreamingOutput entity) {
+        ResponseBuilder builder = Response.ok(entity);
+        builder.cacheControl(cacheControl);
+        context.setResponseBuilder(builder);
+    }
+
     public static void created(InternalContext context, Class<?> resource, JsonObject entity) {
         ResponseBuilder builder = Response.created(getUri(context.getUriInfo(),
                                                           resource,
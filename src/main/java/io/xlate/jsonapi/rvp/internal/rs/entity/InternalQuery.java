@@ -6,16 +6,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import jakarta.json.JsonObject;
 import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.core.UriInfo;
 
 import io.xlate.jsonapi.rvp.JsonApiQuery;
+import io.xlate.jsonapi.rvp.JsonApiResourceType.FilterOperator;
+import io.xlate.jsonapi.rvp.JsonApiResourceType.TotalResults;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMeta;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMetamodel;
 import io.xlate.jsonapi.rvp.internal.validation.boundary.ValidJsonApiQuery;
@@ -24,6 +29,7 @@ import io.xlate.jsonapi.rvp.internal.validation.boundary.ValidJsonApiQuery;
 public class InternalQuery implements JsonApiQuery {
 
     public static final String PARAM_INCLUDE = "include";
+    public static final String PARAM_COUNT = "count";
     public static final String PARAM_SORT = "sort";
 
     public static final String PARAM_PAGE_OFFSET = "page[offset]";
@@ -32,13 +38,19 @@ public class InternalQuery implements JsonApiQuery {
     public static final String PARAM_PAGE_NUMBER = "page[number]";
     public static final String PARAM_PAGE_SIZE = "page[size]";
 
+    public static final String PARAM_PAGE_CURSOR = "page[cursor]";
+    public static final String PARAM_PAGE_AFTER = "page[after]";
+
+    public static final String PARAM_PAGE_TOTAL = "page[total]";
+
     private static final Pattern PATTERN_FIELDS = Pattern.compile("fields\\[([^]]+?)\\]");
-    private static final Pattern PATTERN_FILTER = Pattern.compile("filter\\[([^]]+?)\\]");
+    private static final Pattern PATTERN_FILTER = Pattern.compile("filter\\[([^]]+?)\\](?:\\[([^]]+?)\\])?");
 
     private final EntityMetamodel model;
     private final EntityMeta entityMeta;
     private final String id;
     private final String relationshipName;
+    private final boolean relationshipLinkage;
     private final UriInfo uriInfo;
     private boolean uriProcessed = false;
 
@@ -46,19 +58,40 @@ public class InternalQuery implements JsonApiQuery {
     private Map<String, String> filters = new HashMap<>();
 
     private List<String> include = new ArrayList<>();
-    private List<String> count = new ArrayList<>();
+    private List<String> count = null;
     private List<String> sort = new ArrayList<>();
+    private List<String> batchIds = null;
 
     private Integer firstResult = null;
     private Integer maxResults;
 
+    private boolean cursorPaging = false;
+    private JsonObject cursor = null;
+
+    private TotalResults totalResults = null;
+
     public InternalQuery(EntityMetamodel model, EntityMeta entityMeta, String id, String relationshipName, UriInfo uriInfo) {
+        this(model, entityMeta, id, relationshipName, uriInfo, false);
+    }
+
+    /**
+     * @param relationshipLinkage true when the request is for the linkage of
+     *        the relationship, i.e. the resource identifiers of the related
+     *        resources, which may be sorted and paginated
+     */
+    public InternalQuery(EntityMetamodel model,
+            EntityMeta entityMeta,
+            String id,
+            String relationshipName,
+            UriInfo uriInfo,
+            boolean relationshipLinkage) {
         super();
         this.model = model;
         this.entityMeta = entityMeta;
         this.id = id;
         this.relationshipName = relationshipName;
         this.uriInfo = uriInfo;
+        this.relationshipLinkage = relationshipLinkage;
     }
 
     private void processUri() {
@@ -73,10 +106,24 @@ public class InternalQuery implements JsonApiQuery {
 
         processPaging(params);
 
+        if (params.containsKey(PARAM_COUNT)) {
+            this.count = new ArrayList<>();
+
+            for (String relationship : params.getFirst(PARAM_COUNT).split(",")) {
+                if (!relationship.isEmpty()) {
+                    this.count.add(relationship);
+                }
+            }
+        }
+
         if (params.containsKey(PARAM_INCLUDE)) {
             for (String attribute : params.getFirst(PARAM_INCLUDE).split(",")) {
                 this.include.add(attribute);
-                this.count.remove(attribute);
+
+                if (this.count != null) {
+                    // Relationships on an include path are not counted
+                    this.count.remove(attribute.split("\\.")[0]);
+                }
             }
         }
 
@@ -108,12 +155,32 @@ public class InternalQuery implements JsonApiQuery {
     }
 
     void processFilters(Map.Entry<Matcher, List<String>> filters) {
-        final String filterField = replaceIdentifier(filters.getKey().group(1));
+        final String operator = filters.getKey().group(2);
+        final String filterPath = replaceIdentifier(filters.getKey().group(1));
+        final String filterField;
+
+        if (operator != null && parseFilterOperator(operator) != FilterOperator.EQ) {
+            filterField = filterPath + '[' + operator + ']';
+        } else if (isBatchRead(filterPath, filters.getValue())) {
+            // Comma-separated list of ids, e.g. `filter[id]=1,2,3`
+            this.batchIds = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(filters.getValue().get(0).split(","))));
+            filterField = filterPath + "[in]";
+        } else {
+            filterField = filterPath;
+        }
 
         filters.getValue()
                .forEach(value -> addFilter(this.filters, filterField, value));
     }
 
+    boolean isBatchRead(String filterPath, List<String> values) {
+        return id == null
+                && relationshipName == null
+                && filterPath.equals(entityMeta.getExposedIdAttribute().getName())
+                && values.size() == 1
+                && values.get(0).indexOf(',') > -1;
+    }
+
     String replaceIdentifier(String fieldPath) {
         boolean validFilter = true;
         String[] elements = fieldPath.split("\\.");
@@ -124,7 +191,7 @@ public class InternalQuery implements JsonApiQuery {
                 String attributeName = elements[i];
 
                 if ("id".equals(attributeName)) {
-                    elements[i] = entityMeta.getExposedIdAttribute().getName();
+                    elements[i] = meta.getExposedIdAttribute().getName();
                     fieldPath = String.join(".", elements);
                 }
             } else {
@@ -136,36 +203,134 @@ public class InternalQuery implements JsonApiQuery {
     }
 
     void processPaging(MultivaluedMap<String, String> params) {
-        if (params.containsKey(PARAM_PAGE_OFFSET)) {
+        final int pageSize = getDefaultPageSize();
+
+        if (params.containsKey(PARAM_PAGE_CURSOR) || params.containsKey(PARAM_PAGE_AFTER)) {
+            final String cursorParam = params.containsKey(PARAM_PAGE_CURSOR) ? PARAM_PAGE_CURSOR : PARAM_PAGE_AFTER;
+            this.cursorPaging = true;
+            this.cursor = PageCursor.decode(params.getFirst(cursorParam));
+
+            if (params.containsKey(PARAM_PAGE_LIMIT)) {
+                this.maxResults = tryParseInt(params.getFirst(PARAM_PAGE_LIMIT), pageSize);
+            } else if (params.containsKey(PARAM_PAGE_SIZE)) {
+                this.maxResults = tryParseInt(params.getFirst(PARAM_PAGE_SIZE), pageSize);
+            } else {
+                this.maxResults = pageSize;
+            }
+        } else if (params.containsKey(PARAM_PAGE_OFFSET)) {
             this.firstResult = tryParseInt(params.getFirst(PARAM_PAGE_OFFSET), 0);
 
             if (params.containsKey(PARAM_PAGE_LIMIT)) {
-                int limit = tryParseInt(params.getFirst(PARAM_PAGE_LIMIT), this.firstResult + 10);
+                int limit = tryParseInt(params.getFirst(PARAM_PAGE_LIMIT), this.firstResult + pageSize);
                 this.maxResults = limit - this.firstResult;
             } else {
-                this.maxResults = 10;
+                this.maxResults = pageSize;
             }
         } else if (params.containsKey(PARAM_PAGE_NUMBER)) {
             final int pageNumber = tryParseInt(params.getFirst(PARAM_PAGE_NUMBER), 1);
-            final int pageSize;
+            final int numberedPageSize;
 
             if (params.containsKey(PARAM_PAGE_SIZE)) {
-                pageSize = tryParseInt(params.getFirst(PARAM_PAGE_SIZE), 10);
+                numberedPageSize = tryParseInt(params.getFirst(PARAM_PAGE_SIZE), pageSize);
             } else {
-                pageSize = 10;
+                numberedPageSize = pageSize;
             }
 
-            this.firstResult = ((pageNumber - 1) * pageSize);
-            this.maxResults = pageSize;
+            this.firstResult = ((pageNumber - 1) * numberedPageSize);
+            this.maxResults = numberedPageSize;
         } else if (params.containsKey(PARAM_PAGE_LIMIT)) {
-            this.maxResults = tryParseInt(params.getFirst(PARAM_PAGE_LIMIT), 10);
+            this.maxResults = tryParseInt(params.getFirst(PARAM_PAGE_LIMIT), pageSize);
         } else if (params.containsKey(PARAM_PAGE_SIZE)) {
-            this.maxResults = tryParseInt(params.getFirst(PARAM_PAGE_SIZE), 10);
+            this.maxResults = tryParseInt(params.getFirst(PARAM_PAGE_SIZE), pageSize);
         } else {
             this.firstResult = 0;
+
+            // The resources of a batch read are limited by the list of ids
+            if (isCollection() && !relationshipLinkage && batchIds == null && getTargetEntityMeta().getDefaultPageSize() > 0) {
+                this.maxResults = pageSize;
+            }
+        }
+
+        if (params.containsKey(PARAM_PAGE_TOTAL)) {
+            this.totalResults = parseTotalResults(params.getFirst(PARAM_PAGE_TOTAL));
         }
     }
 
+    /**
+     * Page size used when the request does not give one: the default page
+     * size configured for the resource type retrieved, or 10, limited to the
+     * configured maximum page size.
+     */
+    int getDefaultPageSize() {
+        EntityMeta targetMeta = getTargetEntityMeta();
+        int pageSize = targetMeta.getDefaultPageSize() > 0 ? targetMeta.getDefaultPageSize() : 10;
+        int maxPageSize = targetMeta.getMaxPageSize();
+        return maxPageSize > 0 ? Math.min(pageSize, maxPageSize) : pageSize;
+    }
+
+    /**
+     * Parse the value of the `page[total]` parameter.
+     *
+     * @param value the parameter value, e.g. `exact`
+     * @return the requested total results strategy or null if the value is
+     *         not valid
+     */
+    public static TotalResults parseTotalResults(String value) {
+        if (value != null) {
+            for (TotalResults strategy : TotalResults.values()) {
+                if (strategy.name().toLowerCase(Locale.ROOT).equals(value)) {
+                    return strategy;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse the operator of a filter, e.g. `gte` for `filter[created][gte]`.
+     *
+     * @param value the operator given in the parameter name, or null when the
+     *        parameter has no operator
+     * @return the filter operator or null if the value is not valid
+     */
+    public static FilterOperator parseFilterOperator(String value) {
+        if (value == null) {
+            return FilterOperator.EQ;
+        }
+        for (FilterOperator operator : FilterOperator.values()) {
+            if (operator.name().toLowerCase(Locale.ROOT).equals(value)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param filterKey a key of the {@link #getFilters() filters}, e.g.
+     *        `created[gte]`
+     * @return the path of the attribute filtered, e.g. `created`
+     */
+    public static String getFilterPath(String filterKey) {
+        int operatorStart = filterKey.indexOf('[');
+        return operatorStart > -1 ? filterKey.substring(0, operatorStart) : filterKey;
+    }
+
+    /**
+     * @param filterKey a key of the {@link #getFilters() filters}, e.g.
+     *        `created[gte]`
+     * @return the operator of the filter, or null if the operator given is
+     *         not valid
+     */
+    public static FilterOperator getFilterOperator(String filterKey) {
+        int operatorStart = filterKey.indexOf('[');
+
+        if (operatorStart < 0) {
+            return FilterOperator.EQ;
+        }
+
+        return parseFilterOperator(filterKey.substring(operatorStart + 1, filterKey.length() - 1));
+    }
+
     Integer tryParseInt(String value, Integer defaultValue) {
         try {
             return Integer.parseInt(value);
@@ -190,6 +355,37 @@ public class InternalQuery implements JsonApiQuery {
         return relationshipName;
     }
 
+    public boolean isRelationshipLinkage() {
+        return relationshipLinkage;
+    }
+
+    /**
+     * @return the metadata of the resources retrieved by the request, i.e. the
+     *         related resource type when a relationship is requested
+     */
+    public EntityMeta getTargetEntityMeta() {
+        if (relationshipName != null && entityMeta.isRelatedTo(relationshipName)) {
+            return model.getEntityMeta(entityMeta.getRelatedEntityClass(relationshipName));
+        }
+
+        return entityMeta;
+    }
+
+    /**
+     * @return true when the request retrieves a collection: the resources of
+     *         a type, the related resources of a to-many relationship, or the
+     *         linkage of a relationship
+     */
+    public boolean isCollection() {
+        if (id == null || relationshipLinkage) {
+            return true;
+        }
+
+        return relationshipName != null
+                && entityMeta.isRelatedTo(relationshipName)
+                && entityMeta.getEntityType().getAttribute(relationshipName).isCollection();
+    }
+
     public UriInfo getUriInfo() {
         return uriInfo;
     }
@@ -201,6 +397,12 @@ public class InternalQuery implements JsonApiQuery {
         return Collections.unmodifiableMap(this.fields);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Filters using an operator other than equality are keyed by the path and
+     * the operator, e.g. `created[gte]`.
+     */
     @Override
     public Map<String, String> getFilters() {
         processUri();
@@ -213,9 +415,24 @@ public class InternalQuery implements JsonApiQuery {
         return Collections.unmodifiableList(this.include);
     }
 
+    /**
+     * @return the relationships the client requested to be counted using the
+     *         `count` parameter, or null when the resource type's default
+     *         applies
+     */
     public List<String> getCount() {
         processUri();
-        return count;
+        return count != null ? Collections.unmodifiableList(count) : null;
+    }
+
+    /**
+     * @return the ids requested with a comma-separated `filter[id]` in the
+     *         order given by the client (without duplicates), or null when the
+     *         request is not a batch read
+     */
+    public List<String> getBatchIds() {
+        processUri();
+        return batchIds != null ? Collections.unmodifiableList(batchIds) : null;
     }
 
     @Override
@@ -236,6 +453,35 @@ public class InternalQuery implements JsonApiQuery {
         return maxResults;
     }
 
+    /**
+     * @return true when the client requested keyset pagination using
+     *         `page[cursor]` (or the `page[after]` alias)
+     */
+    public boolean isCursorPaging() {
+        processUri();
+        return cursorPaging;
+    }
+
+    /**
+     * @return the decoded key values of the last resource on the previous
+     *         page, an empty object for the first page, or null when the
+     *         cursor given by the client is not valid
+     */
+    public JsonObject getCursor() {
+        processUri();
+        return cursor;
+    }
+
+    /**
+     * @return the strategy requested by the client using `page[total]` to
+     *         compute the total number of results, or null when the resource
+     *         type's default applies
+     */
+    public TotalResults getTotalResults() {
+        processUri();
+        return totalResults;
+    }
+
     public void addField(String resourceType, String fieldName) {
         processUri();
         addField(this.fields, resourceType, fieldName);
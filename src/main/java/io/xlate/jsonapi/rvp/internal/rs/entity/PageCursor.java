@@ -0,0 +1,50 @@
+package io.xlate.jsonapi.rvp.internal.rs.entity;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+
+/**
+ * Opaque token used for keyset (cursor) pagination. The token is the
+ * URL-safe Base64 encoding of a JSON object holding the sort key values and
+ * the exposed id of the last resource on the previous page, in sort order.
+ */
+public class PageCursor {
+
+    private PageCursor() {
+    }
+
+    public static String encode(JsonObject keys) {
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString(keys.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor token previously created by {@link #encode(JsonObject)}.
+     *
+     * @param token the cursor token, an empty token requests the first page
+     * @return the decoded key values or null when the token is not valid
+     */
+    public static JsonObject decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return JsonValue.EMPTY_JSON_OBJECT;
+        }
+
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+
+            try (JsonReader reader = Json.createReader(new StringReader(json))) {
+                return reader.readObject();
+            }
+        } catch (IllegalArgumentException | JsonException e) {
+            return null;
+        }
+    }
+}
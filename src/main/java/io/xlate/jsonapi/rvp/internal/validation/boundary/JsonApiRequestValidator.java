@@ -295,7 +295,7 @@ public class JsonApiRequestValidator implements ConstraintValidator<ValidJsonApi
         return valid;
     }
 
-    Set<ValueType> allowedAttributeTypes(Class<?> propertyType) {
+    static Set<ValueType> allowedAttributeTypes(Class<?> propertyType) {
         if (Boolean.class.isAssignableFrom(propertyType) || Boolean.TYPE.equals(propertyType)) {
             return propertyType.isPrimitive()
                     ? Set.of(ValueType.TRUE, ValueType.FALSE)
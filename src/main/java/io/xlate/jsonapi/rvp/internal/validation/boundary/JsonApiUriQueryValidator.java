@@ -1,16 +1,24 @@
 package io.xlate.jsonapi.rvp.internal.validation.boundary;
 
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonValue.ValueType;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import jakarta.ws.rs.core.MultivaluedMap;
 
+import io.xlate.jsonapi.rvp.JsonApiResourceType.FilterOperator;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMeta;
 import io.xlate.jsonapi.rvp.internal.persistence.entity.EntityMetamodel;
 import io.xlate.jsonapi.rvp.internal.rs.entity.InternalQuery;
@@ -33,7 +41,8 @@ public class JsonApiUriQueryValidator
         boolean valid = true;
 
         MultivaluedMap<String, String> params = value.getUriInfo().getQueryParameters();
-        String id = value.getId();
+        // Related to-many resources and relationship linkage are collections
+        String id = value.isCollection() ? null : value.getId();
 
         valid = validateFields(value, context, valid);
         valid = validateFilters(value, context, valid);
@@ -42,6 +51,10 @@ public class JsonApiUriQueryValidator
             valid = validateInclude(value, params, context, valid);
         }
 
+        if (params.containsKey(InternalQuery.PARAM_COUNT)) {
+            valid = validateCount(value, params, context, valid);
+        }
+
         if (params.containsKey(InternalQuery.PARAM_SORT)) {
             valid = validateSort(value, id, params, context, valid);
         }
@@ -52,6 +65,13 @@ public class JsonApiUriQueryValidator
         valid = validatePaging(id, InternalQuery.PARAM_PAGE_OFFSET, params, context, valid);
         valid = validatePaging(id, InternalQuery.PARAM_PAGE_LIMIT, params, context, valid);
 
+        valid = validateCursor(value, id, InternalQuery.PARAM_PAGE_CURSOR, params, context, valid);
+        valid = validateCursor(value, id, InternalQuery.PARAM_PAGE_AFTER, params, context, valid);
+
+        valid = validateTotal(id, params, context, valid);
+        valid = validatePageSize(value, params, context, valid);
+        valid = validateBatchSize(value, context, valid);
+
         return valid;
     }
 
@@ -66,9 +86,10 @@ public class JsonApiUriQueryValidator
 
         String includeParam = includeParams.get(0);
         Set<String> included = new HashSet<>();
+        int maxIncludes = meta.getMaxIncludes();
 
         for (String attribute : includeParam.split(",")) {
-            if (!included.contains(attribute) && !meta.isRelatedTo(attribute)) {
+            if (!included.contains(attribute) && !isValidIncludePath(value.getModel(), meta, attribute)) {
                 valid = false;
                 addViolation(context, InternalQuery.PARAM_INCLUDE, "Invalid relationship: `" + attribute + "`");
             }
@@ -76,6 +97,63 @@ public class JsonApiUriQueryValidator
             included.add(attribute);
         }
 
+        if (maxIncludes > 0 && included.size() > maxIncludes) {
+            valid = false;
+            addViolation(context, InternalQuery.PARAM_INCLUDE, "Number of included relationships must not exceed " + maxIncludes);
+        }
+
+        return valid;
+    }
+
+    boolean isValidIncludePath(EntityMetamodel model, EntityMeta meta, String includePath) {
+        for (String relationshipName : includePath.split("\\.", -1)) {
+            if (meta == null || !meta.isRelatedTo(relationshipName)) {
+                return false;
+            }
+            meta = model.getEntityMeta(meta.getRelatedEntityClass(relationshipName));
+        }
+
+        return true;
+    }
+
+    /**
+     * A sort key is an attribute of the resource or, e.g. `author.name`, an
+     * attribute of a resource reached by to-one relationships. Sorting on the
+     * attributes of a to-many relationship would not give a single position
+     * to each resource.
+     */
+    boolean isValidSortPath(EntityMetamodel model, EntityMeta meta, String sortPath) {
+        String[] elements = sortPath.split("\\.", -1);
+
+        for (int i = 0; i + 1 < elements.length; i++) {
+            String relationshipName = elements[i];
+
+            if (meta == null || !meta.isRelatedTo(relationshipName)
+                    || meta.getEntityType().getAttribute(relationshipName).isCollection()) {
+                return false;
+            }
+
+            meta = model.getEntityMeta(meta.getRelatedEntityClass(relationshipName));
+        }
+
+        return meta != null && meta.hasAttribute(elements[elements.length - 1]);
+    }
+
+    boolean validateCount(InternalQuery value,
+                          MultivaluedMap<String, String> params,
+                          ConstraintValidatorContext context,
+                          boolean valid) {
+
+        EntityMeta meta = getEntityMeta(value);
+        valid = validateSingle(InternalQuery.PARAM_COUNT, params.get(InternalQuery.PARAM_COUNT), context, valid);
+
+        for (String relationship : value.getCount()) {
+            if (!meta.isRelatedTo(relationship)) {
+                valid = false;
+                addViolation(context, InternalQuery.PARAM_COUNT, "Invalid relationship: `" + relationship + "`");
+            }
+        }
+
         return valid;
     }
 
@@ -107,10 +185,16 @@ public class JsonApiUriQueryValidator
     boolean validateFilters(InternalQuery value, ConstraintValidatorContext context, boolean valid) {
         EntityMetamodel model = value.getModel();
 
+        int maxFilterDepth = getEntityMeta(value).getMaxFilterDepth();
+
         for (Entry<String, String> filter : value.getFilters().entrySet()) {
             EntityMeta meta = value.getEntityMeta();
-            String path = filter.getKey();
+            String key = filter.getKey();
+            String path = InternalQuery.getFilterPath(key);
+            FilterOperator operator = InternalQuery.getFilterOperator(key);
+            String parameter = "filter[" + path + "]" + key.substring(path.length());
             String[] elements = path.split("\\.");
+            String attribute = elements[elements.length - 1];
             boolean validFilter = true;
 
             for (int i = 0; i < elements.length && validFilter; i++) {
@@ -125,12 +209,64 @@ public class JsonApiUriQueryValidator
             if (!validFilter) {
                 valid = false;
                 addViolation(context, "filter[" + path + "]", "Filter path `" + path + "` is not valid");
+            } else if (maxFilterDepth > 0 && elements.length - 1 > maxFilterDepth) {
+                valid = false;
+                addViolation(context, parameter, "Filter path must not join more than " + maxFilterDepth + " relationship(s)");
+            } else if (operator == null) {
+                valid = false;
+                addViolation(context, parameter, "Filter operator is not valid");
+            } else if (!isSupportedFilterOperator(meta, attribute, operator)) {
+                valid = false;
+                addViolation(context,
+                             parameter,
+                             "Filter operator `" + operator.name().toLowerCase(Locale.ROOT) + "` is not supported for `" + path + "`");
+            } else if (!isValidFilterValue(meta, attribute, operator, filter.getValue())) {
+                valid = false;
+                addViolation(context,
+                             parameter,
+                             "Filter value `" + filter.getValue() + "` is not valid for `" + path + "`");
             }
         }
 
         return valid;
     }
 
+    boolean isSupportedFilterOperator(EntityMeta meta, String attribute, FilterOperator operator) {
+        if (!meta.isFilterOperatorAllowed(attribute, operator)) {
+            return false;
+        }
+
+        switch (operator) {
+        case PREFIX:
+            return String.class.equals(meta.getAttributeType(attribute));
+        case LT:
+        case LTE:
+        case GT:
+        case GTE:
+            return Comparable.class.isAssignableFrom(meta.getAttributeType(attribute));
+        default:
+            return true;
+        }
+    }
+
+    boolean isValidFilterValue(EntityMeta meta, String attribute, FilterOperator operator, String value) {
+        if (operator == FilterOperator.EQ && ("null".equals(value) || "!null".equals(value))) {
+            return true;
+        }
+
+        String[] values = operator == FilterOperator.IN ? value.split(",") : new String[] { value };
+
+        try {
+            for (String v : values) {
+                meta.readValue(attribute, v);
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.FINER, () -> "Invalid filter value: `" + value + "`: " + e.getMessage());
+            return false;
+        }
+    }
+
     public static EntityMeta getRelatedEntityMeta(EntityMetamodel model, EntityMeta meta, String relationshipJoin) {
         final String relationshipName;
 
@@ -164,12 +300,19 @@ public class JsonApiUriQueryValidator
             valid = validateSingle(InternalQuery.PARAM_SORT, sortParams, context, valid);
 
             String sortParam = sortParams.get(0);
+            String[] sortKeys = sortParam.split(",");
+            int maxSortKeys = meta.getMaxSortKeys();
 
-            for (String sort : sortParam.split(",")) {
+            if (maxSortKeys > 0 && sortKeys.length > maxSortKeys) {
+                valid = false;
+                addViolation(context, InternalQuery.PARAM_SORT, "Number of sort keys must not exceed " + maxSortKeys);
+            }
+
+            for (String sort : sortKeys) {
                 boolean descending = sort.startsWith("-");
                 String attribute = sort.substring(descending ? 1 : 0);
 
-                if (!meta.hasAttribute(attribute)) {
+                if (!isValidSortPath(value.getModel(), meta, attribute)) {
                     LOGGER.log(Level.FINER, () -> "Invalid attribute name: `" + attribute + "`.");
                     valid = false;
                     addViolation(context, InternalQuery.PARAM_SORT, "Sort key `" + sort + "` is not an attribute");
@@ -207,7 +350,12 @@ public class JsonApiUriQueryValidator
                 valid = validateSingle(paramName, pageParamValues, context, valid);
 
                 try {
-                    Integer.parseInt(pageParamValues.get(0));
+                    final int minimum = InternalQuery.PARAM_PAGE_NUMBER.equals(paramName) ? 1 : 0;
+
+                    if (Integer.parseInt(pageParamValues.get(0)) < minimum) {
+                        valid = false;
+                        addViolation(context, paramName, "Page parameter must not be less than " + minimum);
+                    }
                 } catch (NumberFormatException e) {
                     LOGGER.log(Level.FINER, () -> "Invalid page parameter: `" + pageParamValues.get(0) + "`.");
                     valid = false;
@@ -218,6 +366,185 @@ public class JsonApiUriQueryValidator
         return valid;
     }
 
+    boolean validateCursor(InternalQuery value,
+                           String id,
+                           String paramName,
+                           MultivaluedMap<String, String> params,
+                           ConstraintValidatorContext context,
+                           boolean valid) {
+
+        if (params.containsKey(paramName)) {
+            if (id != null) {
+                valid = false;
+                addViolation(context, paramName, "Pagination not allowed for single resource requests");
+            } else {
+                valid = validateSingle(paramName, params.get(paramName), context, valid);
+
+                if (params.containsKey(InternalQuery.PARAM_PAGE_OFFSET) || params.containsKey(InternalQuery.PARAM_PAGE_NUMBER)) {
+                    valid = false;
+                    addViolation(context, paramName, "Cursor pagination may not be combined with `page[offset]` or `page[number]`");
+                } else if (Integer.valueOf(0).equals(value.getMaxResults())) {
+                    valid = false;
+                    addViolation(context, paramName, "Cursor pagination requires a positive page size");
+                } else if (!isValidCursor(value)) {
+                    LOGGER.log(Level.FINER, () -> "Invalid page cursor: `" + params.getFirst(paramName) + "`.");
+                    valid = false;
+                    addViolation(context, paramName, "Page cursor is not valid");
+                }
+            }
+        }
+
+        return valid;
+    }
+
+    boolean validateTotal(String id,
+                          MultivaluedMap<String, String> params,
+                          ConstraintValidatorContext context,
+                          boolean valid) {
+
+        final String paramName = InternalQuery.PARAM_PAGE_TOTAL;
+
+        if (params.containsKey(paramName)) {
+            if (id != null) {
+                valid = false;
+                addViolation(context, paramName, "Pagination not allowed for single resource requests");
+            } else {
+                valid = validateSingle(paramName, params.get(paramName), context, valid);
+
+                if (InternalQuery.parseTotalResults(params.getFirst(paramName)) == null) {
+                    valid = false;
+                    addViolation(context, paramName, "Page total must be one of `none`, `exact`, or `estimate`");
+                }
+            }
+        }
+
+        return valid;
+    }
+
+    boolean validateBatchSize(InternalQuery value, ConstraintValidatorContext context, boolean valid) {
+        final int maxPageSize = getEntityMeta(value).getMaxPageSize();
+        final List<String> batchIds = value.getBatchIds();
+
+        if (maxPageSize > 0 && batchIds != null && batchIds.size() > maxPageSize) {
+            valid = false;
+            addViolation(context, "filter[id]", "Number of ids must not exceed " + maxPageSize);
+        }
+
+        return valid;
+    }
+
+    boolean validatePageSize(InternalQuery value,
+                             MultivaluedMap<String, String> params,
+                             ConstraintValidatorContext context,
+                             boolean valid) {
+
+        final int maxPageSize = getEntityMeta(value).getMaxPageSize();
+        final Integer pageSize = value.getMaxResults();
+
+        if (valid && pageSize != null && pageSize < 0) {
+            // Only possible when `page[limit]` is less than `page[offset]`
+            addViolation(context, InternalQuery.PARAM_PAGE_LIMIT, "Page limit must not be less than `page[offset]`");
+            return false;
+        }
+
+        if (!value.isCollection() || maxPageSize < 1) {
+            return valid;
+        }
+
+        for (String paramName : List.of(InternalQuery.PARAM_PAGE_LIMIT, InternalQuery.PARAM_PAGE_SIZE)) {
+            Integer maxResults = value.getMaxResults();
+
+            if (params.containsKey(paramName) && maxResults != null && maxResults > maxPageSize) {
+                valid = false;
+                addViolation(context, paramName, "Page size must not exceed " + maxPageSize);
+                break;
+            }
+        }
+
+        return valid;
+    }
+
+    boolean isValidCursor(InternalQuery value) {
+        JsonObject cursor = value.getCursor();
+
+        if (cursor == null) {
+            return false;
+        }
+
+        if (cursor.isEmpty()) {
+            return true;
+        }
+
+        // The cursor is only valid for the same sort keys, followed by the resource id
+        List<String> expectedKeys = new ArrayList<>(value.getSort().size() + 1);
+        value.getSort().stream().map(key -> key.startsWith("-") ? key.substring(1) : key).forEach(expectedKeys::add);
+        expectedKeys.add("id");
+
+        if (!expectedKeys.equals(new ArrayList<>(cursor.keySet()))) {
+            return false;
+        }
+
+        final EntityMeta meta = getEntityMeta(value);
+
+        return cursor.entrySet()
+                     .stream()
+                     .allMatch(entry -> isValidCursorValue(value.getModel(), meta, entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Determine whether a cursor value has the JSON type of the attribute it
+     * gives the position for and, when given as a string, whether the
+     * attribute's reader accepts it. A client may modify the cursor it was
+     * given, so the values are not trusted.
+     */
+    boolean isValidCursorValue(EntityMetamodel model, EntityMeta meta, String key, JsonValue cursorValue) {
+        final ValueType valueType = cursorValue.getValueType();
+
+        if (valueType == ValueType.NULL) {
+            return true;
+        }
+
+        final String attribute;
+
+        if ("id".equals(key)) {
+            attribute = meta.getExposedIdAttribute().getName();
+        } else {
+            int separator = key.lastIndexOf('.');
+
+            if (separator > 0) {
+                for (String relationshipName : key.substring(0, separator).split("\\.")) {
+                    meta = model.getEntityMeta(meta.getRelatedEntityClass(relationshipName));
+
+                    if (meta == null) {
+                        return false;
+                    }
+                }
+            }
+
+            attribute = key.substring(separator + 1);
+        }
+
+        final PropertyDescriptor property = meta.getPropertyDescriptor(attribute);
+
+        if (property == null) {
+            return false;
+        }
+
+        Set<ValueType> allowedTypes = JsonApiRequestValidator.allowedAttributeTypes(property.getPropertyType());
+
+        if (valueType == ValueType.STRING && ("id".equals(key) || allowedTypes.contains(valueType))) {
+            try {
+                meta.readValue(attribute, ((JsonString) cursorValue).getString());
+                return true;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINER, () -> "Invalid cursor value for `" + key + "`: " + e.getMessage());
+                return false;
+            }
+        }
+
+        return allowedTypes.contains(valueType);
+    }
+
     boolean validateSingle(String paramName,
                            List<String> paramValues,
                            ConstraintValidatorContext context,
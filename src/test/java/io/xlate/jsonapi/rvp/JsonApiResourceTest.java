@@ -2,21 +2,33 @@ package io.xlate.jsonapi.rvp;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 
 import jakarta.enterprise.inject.Instance;
 import jakarta.json.Json;
 import jakarta.json.JsonArray;
+import jakarta.json.JsonNumber;
 import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
 import jakarta.json.JsonValue;
 import jakarta.json.JsonWriter;
 import jakarta.json.JsonWriterFactory;
@@ -29,10 +41,14 @@ import jakarta.ws.rs.GET;
 import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.jboss.resteasy.specimpl.ResteasyUriInfo;
 import org.json.JSONException;
 import org.junit.jupiter.api.AfterEach;
@@ -43,12 +59,16 @@ import org.mockito.Mockito;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 
+import io.xlate.jsonapi.rvp.JsonApiResourceType.FilterOperator;
+import io.xlate.jsonapi.rvp.JsonApiResourceType.RelationshipCounts;
+import io.xlate.jsonapi.rvp.JsonApiResourceType.TotalResults;
 import io.xlate.jsonapi.rvp.internal.DefaultJsonApiHandler;
 import io.xlate.jsonapi.rvp.internal.validation.boundary.TransactionalValidator;
 import io.xlate.jsonapi.rvp.test.entity.Author;
 import io.xlate.jsonapi.rvp.test.entity.Comment;
 import io.xlate.jsonapi.rvp.test.entity.Post;
 import io.xlate.jsonapi.rvp.test.entity.ReadOnlyCode;
+import io.xlate.jsonapi.rvp.test.entity.Tag;
 import io.xlate.jsonapi.rvp.test.entity.TypeModel;
 
 class JsonApiResourceTest {
@@ -57,16 +77,106 @@ class JsonApiResourceTest {
     static class ApiImpl extends JsonApiResource {
     }
 
+    /**
+     * Options that may be given to the resource types of a test case, by the
+     * name of the builder method.
+     */
+    static final Map<String, BiConsumer<JsonApiResourceType.Builder<?>, JsonValue>> TYPE_OPTIONS = Map.ofEntries(
+        Map.entry("totalResults", (type, value) -> type.totalResults(TotalResults.valueOf(string(value)))),
+        Map.entry("totalResultsLimit", (type, value) -> type.totalResultsLimit(number(value))),
+        Map.entry("relationshipCounts", (type, value) -> type.relationshipCounts(RelationshipCounts.valueOf(string(value)))),
+        Map.entry("countedRelationships", (type, value) -> type.countedRelationships(strings(value))),
+        Map.entry("filterOperators", (type, value) -> value.asJsonObject()
+                                                           .forEach((attribute, operators) -> type.filterOperators(attribute,
+                                                                                                                   Arrays.stream(strings(operators))
+                                                                                                                         .map(FilterOperator::valueOf)
+                                                                                                                         .toArray(FilterOperator[]::new)))),
+        Map.entry("readOnly", (type, value) -> type.readOnly(JsonValue.TRUE.equals(value))),
+        Map.entry("cacheable", (type, value) -> type.cacheable(JsonValue.TRUE.equals(value))),
+        Map.entry("referencedById", (type, value) -> type.referencedById(JsonValue.TRUE.equals(value))),
+        Map.entry("responseCache", (type, value) -> type.responseCache(Duration.ofSeconds(number(value)))),
+        Map.entry("streaming", (type, value) -> type.streaming(number(value))),
+        Map.entry("maxPageSize", (type, value) -> type.maxPageSize(number(value))),
+        Map.entry("defaultPageSize", (type, value) -> type.defaultPageSize(number(value))),
+        Map.entry("maxIncludes", (type, value) -> type.maxIncludes(number(value))),
+        Map.entry("maxFilterDepth", (type, value) -> type.maxFilterDepth(number(value))),
+        Map.entry("maxSortKeys", (type, value) -> type.maxSortKeys(number(value))),
+        Map.entry("queryTimeout", (type, value) -> type.queryTimeout(number(value))));
+
+    /**
+     * Counters of the persistence provider that a test case may expect a
+     * request to increase, by the name used in the test case.
+     */
+    static final Map<String, ToLongFunction<Statistics>> STATISTICS = Map.of(
+        "entityLoads", Statistics::getEntityLoadCount,
+        "queryPlanCacheHits", Statistics::getQueryPlanCacheHitCount,
+        "statements", Statistics::getPrepareStatementCount);
+
     EntityManagerFactory emf;
     EntityManager em;
     JsonApiResource target;
     JsonApiHandler<?> defaultHandler = new DefaultJsonApiHandler();
+    JsonApiHandler<?> requestHandler;
+    EntityTag ifNoneMatch;
+    EntityTag lastEntityTag;
+
+    static String string(JsonValue value) {
+        return ((JsonString) value).getString();
+    }
+
+    static String[] strings(JsonValue value) {
+        return value.asJsonArray().stream().map(JsonApiResourceTest::string).toArray(String[]::new);
+    }
+
+    static int number(JsonValue value) {
+        return ((JsonNumber) value).intValue();
+    }
 
     Iterator<JsonApiHandler<?>> handlerIterator() {
-        List<JsonApiHandler<?>> handlers = Arrays.asList(defaultHandler);
+        List<JsonApiHandler<?>> handlers = requestHandler != null
+                ? Arrays.asList(defaultHandler, requestHandler)
+                : Arrays.asList(defaultHandler);
         return handlers.iterator();
     }
 
+    /**
+     * Handler for all resource types requiring the entity found by single
+     * resource requests.
+     */
+    static class AfterFindHandler implements JsonApiHandler<Object> {
+        @Override
+        public boolean isHandler(String resourceType, String httpMethod) {
+            return true;
+        }
+
+        @Override
+        public void afterFind(JsonApiContext context, Object entity) {
+            // Only implemented to be given the entity
+        }
+    }
+
+    /**
+     * Handler invalidating the cached responses of a resource type when a
+     * request starts, as a concurrent modification would.
+     */
+    class InvalidatingHandler implements JsonApiHandler<Object> {
+        final String resourceType;
+
+        InvalidatingHandler(String resourceType) {
+            this.resourceType = resourceType;
+        }
+
+        @Override
+        public boolean isHandler(String resourceType, String httpMethod) {
+            return true;
+        }
+
+        @Override
+        public void onRequest(JsonApiContext context) {
+            target.invalidateCachedResponses(resourceType);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @BeforeEach
     void setUp() {
@@ -81,24 +191,49 @@ class JsonApiResourceTest {
         target.txValidator = new TransactionalValidator();
         target.txValidator.setValidator(target.validator);
 
-        Mockito.when(target.handlers.iterator()).thenReturn(handlerIterator());
-
-        Set<JsonApiResourceType<?>> resourceTypes = new HashSet<>();
-        resourceTypes.add(JsonApiResourceType.define("authors", Author.class)
-                                             .build());
-        resourceTypes.add(JsonApiResourceType.define("posts", Post.class)
-                                             .exposedIdAttribute("id", Integer::valueOf)
-                                             .reader("title", String::valueOf)
-                                             .build());
-        resourceTypes.add(JsonApiResourceType.define("comments", Comment.class)
-                                             .build());
-        resourceTypes.add(JsonApiResourceType.define("readonly-codes", ReadOnlyCode.class)
-                                             .methods(GET.class)
-                                             .build());
-        resourceTypes.add(JsonApiResourceType.define("type-models", TypeModel.class)
-                                             .methods(GET.class, POST.class, PATCH.class)
-                                             .build());
-        target.initialize(resourceTypes);
+        Mockito.when(target.handlers.iterator()).thenAnswer(invocation -> handlerIterator());
+
+        Mockito.when(target.request.evaluatePreconditions(Mockito.any(EntityTag.class)))
+               .thenAnswer(invocation -> notModified(invocation.getArgument(0)));
+        Mockito.when(target.request.evaluatePreconditions(Mockito.any(Date.class), Mockito.any(EntityTag.class)))
+               .thenAnswer(invocation -> notModified(invocation.getArgument(1)));
+
+        target.initialize(resourceTypes(JsonValue.EMPTY_JSON_OBJECT));
+    }
+
+    Response.ResponseBuilder notModified(EntityTag etag) {
+        return etag.equals(ifNoneMatch) ? Response.notModified(etag) : null;
+    }
+
+    /**
+     * Define the resource types of the test API.
+     *
+     * @param typeOptions options given to the builders of the types, by type
+     *        name, e.g. `{ "posts": { "maxPageSize": 5 } }`
+     * @return the resource types
+     */
+    Set<JsonApiResourceType<?>> resourceTypes(JsonObject typeOptions) {
+        Map<String, JsonApiResourceType.Builder<?>> resourceTypes = new HashMap<>();
+        resourceTypes.put("authors", JsonApiResourceType.define("authors", Author.class));
+        resourceTypes.put("posts", JsonApiResourceType.define("posts", Post.class)
+                                                      .exposedIdAttribute("id", Integer::valueOf)
+                                                      .reader("title", String::valueOf));
+        resourceTypes.put("comments", JsonApiResourceType.define("comments", Comment.class));
+        resourceTypes.put("readonly-codes", JsonApiResourceType.define("readonly-codes", ReadOnlyCode.class)
+                                                               .methods(GET.class));
+        resourceTypes.put("tags", JsonApiResourceType.define("tags", Tag.class)
+                                                     .methods(GET.class));
+        resourceTypes.put("type-models", JsonApiResourceType.define("type-models", TypeModel.class)
+                                                            .methods(GET.class, POST.class, PATCH.class));
+
+        typeOptions.forEach((type, options) -> options.asJsonObject()
+                                                      .forEach((option, value) -> TYPE_OPTIONS.get(option)
+                                                                                              .accept(resourceTypes.get(type), value)));
+
+        return resourceTypes.values()
+                            .stream()
+                            .<JsonApiResourceType<?>>map(JsonApiResourceType.Builder::build)
+                            .collect(Collectors.toSet());
     }
 
     @AfterEach
@@ -126,13 +261,22 @@ class JsonApiResourceTest {
         return Json.createReader(new StringReader(requestBody.replace('\'', '"'))).readObject();
     }
 
-    void assertResponseEquals(int expectedStatus, int actualStatus, String expectedEntity, String actualEntity) throws JSONException {
+    JsonArray readArray(String requestBody) {
+        return Json.createReader(new StringReader(requestBody.replace('\'', '"'))).readArray();
+    }
+
+    void assertResponseEquals(int expectedStatus,
+                              int actualStatus,
+                              String expectedEntity,
+                              String actualEntity,
+                              JSONCompareMode compareMode)
+            throws JSONException {
         try {
             assertEquals(expectedStatus, actualStatus);
             if (expectedEntity == null || expectedEntity.isBlank()) {
                 assertEquals(expectedEntity, actualEntity);
             } else {
-                JSONAssert.assertEquals(expectedEntity, actualEntity, JSONCompareMode.NON_EXTENSIBLE);
+                JSONAssert.assertEquals(expectedEntity, actualEntity, compareMode);
             }
         } catch (Throwable t) {
             Map<String, Object> map = new HashMap<>();
@@ -145,12 +289,50 @@ class JsonApiResourceTest {
         }
     }
 
-    void testResourceMethod(String jsonDml,
-                            String requestUri,
-                            String requestMethod,
-                            int expectedStatus,
-                            String expectedResponse,
-                            Supplier<Response> responseSupplier)
+    String readEntity(Response response) {
+        Object entityObject = response.getEntity();
+
+        if (entityObject instanceof StreamingOutput) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            try {
+                ((StreamingOutput) entityObject).write(output);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return output.toString(StandardCharsets.UTF_8);
+        }
+
+        return entityObject != null ? String.valueOf(entityObject) : null;
+    }
+
+    Response testResourceMethod(String jsonDml,
+                                String requestUri,
+                                String requestMethod,
+                                int expectedStatus,
+                                String expectedResponse,
+                                Supplier<Response> responseSupplier)
+            throws JSONException {
+
+        return testResourceMethod(jsonDml,
+                                  requestUri,
+                                  requestMethod,
+                                  expectedStatus,
+                                  expectedResponse,
+                                  JSONCompareMode.NON_EXTENSIBLE,
+                                  true,
+                                  responseSupplier);
+    }
+
+    Response testResourceMethod(String jsonDml,
+                                String requestUri,
+                                String requestMethod,
+                                int expectedStatus,
+                                String expectedResponse,
+                                JSONCompareMode compareMode,
+                                boolean transactional,
+                                Supplier<Response> responseSupplier)
             throws JSONException {
 
         executeDml(jsonDml);
@@ -159,22 +341,142 @@ class JsonApiResourceTest {
         target.uriInfo = new ResteasyUriInfo(requestUri, "/");
         Response response;
 
-        var tx = em.getTransaction();
+        if (transactional) {
+            var tx = em.getTransaction();
 
-        try {
-            tx.begin();
+            try {
+                tx.begin();
+                response = responseSupplier.get();
+                tx.commit();
+            } catch (Exception e) {
+                tx.rollback();
+                throw e;
+            }
+        } else {
             response = responseSupplier.get();
-            tx.commit();
-        } catch (Exception e) {
-            tx.rollback();
-            throw e;
         }
 
         assertNotNull(response);
 
-        Object entityObject = response.getEntity();
-        String responseEntity = entityObject != null ? String.valueOf(entityObject) : null;
-        assertResponseEquals(expectedStatus, response.getStatus(), expectedResponse, responseEntity);
+        String responseEntity = readEntity(response);
+        assertResponseEquals(expectedStatus, response.getStatus(), expectedResponse, responseEntity, compareMode);
+        return response;
+    }
+
+    /**
+     * Execute a request described by a test case, e.g. `{ "method": "GET",
+     * "uri": "/test/posts/1", "status": 200, "response": { ... } }`. The
+     * request may also give `dml` executed before the request, a `body`,
+     * `ifNoneMatch` to send the entity tag of the previous response, a
+     * pattern for the expected `etag`, whether the primary data is `ordered`,
+     * whether the request runs in a `transaction` (the default), whether the
+     * response is expected to be `streamed`, the expected response
+     * `headers`, the expected `sizes` of the document's arrays (compared in
+     * place of a `response` that is not given), the expected increase of
+     * provider `statistics`, the name
+     * of the `user`, whether a handler implementing `afterFind` is
+     * present and the resource type `invalidated` while the request is
+     * processed.
+     */
+    void testRequest(JsonObject request) throws JSONException {
+        final String method = request.getString("method", "GET");
+        final String requestUri = request.getString("uri");
+        final JsonObject expected = request.getJsonObject("response");
+        // Without an expected response, only the `sizes` of the document's arrays are compared
+        final boolean sizesOnly = expected == null && request.containsKey("sizes");
+
+        if (request.containsKey("dml")) {
+            executeDml(request.getJsonArray("dml").toString());
+        }
+
+        ifNoneMatch = request.getBoolean("ifNoneMatch", false) ? lastEntityTag : null;
+        requestHandler = request.getBoolean("afterFind", false) ? new AfterFindHandler() : null;
+
+        if (request.containsKey("invalidated")) {
+            requestHandler = new InvalidatingHandler(request.getString("invalidated"));
+        }
+
+        final String user = request.getString("user", null);
+        final Principal principal = user != null ? () -> user : null;
+        Mockito.when(target.security.getUserPrincipal()).thenReturn(principal);
+
+        final Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        final Map<String, Long> initialStatistics = new HashMap<>();
+        STATISTICS.forEach((name, counter) -> initialStatistics.put(name, counter.applyAsLong(statistics)));
+
+        Response response = testResourceMethod("",
+                                               requestUri,
+                                               method,
+                                               request.getInt("status"),
+                                               sizesOnly ? "{}" : (expected != null ? expected.toString() : null),
+                                               getCompareMode(request, sizesOnly),
+                                               request.getBoolean("transaction", true),
+                                               getResourceMethod(method, requestUri, request.getJsonObject("body")));
+
+        if (request.containsKey("statistics")) {
+            request.getJsonObject("statistics")
+                   .forEach((name, value) -> assertEquals(((JsonNumber) value).longValue(),
+                                                          STATISTICS.get(name).applyAsLong(statistics) - initialStatistics.get(name),
+                                                          name));
+        }
+
+        if (request.containsKey("sizes")) {
+            JsonObject document = Json.createReader(new StringReader(readEntity(response))).readObject();
+            request.getJsonObject("sizes")
+                   .forEach((name, value) -> assertEquals(((JsonNumber) value).intValue(), document.getJsonArray(name).size(), name));
+        }
+
+        if (request.containsKey("headers")) {
+            request.getJsonObject("headers")
+                   .forEach((name, value) -> assertEquals(((JsonString) value).getString(), response.getHeaderString(name)));
+        }
+
+        lastEntityTag = response.getEntityTag();
+
+        if (request.containsKey("streamed")) {
+            assertEquals(request.getBoolean("streamed"), response.getEntity() instanceof StreamingOutput);
+        }
+
+        if (request.containsKey("etag")) {
+            assertNotNull(lastEntityTag);
+            assertTrue(lastEntityTag.getValue().matches(request.getString("etag")), lastEntityTag.getValue());
+        }
+    }
+
+    JSONCompareMode getCompareMode(JsonObject request, boolean sizesOnly) {
+        if (sizesOnly) {
+            return JSONCompareMode.LENIENT;
+        }
+        return request.getBoolean("ordered", false) ? JSONCompareMode.STRICT : JSONCompareMode.NON_EXTENSIBLE;
+    }
+
+    Supplier<Response> getResourceMethod(String method, String requestUri, JsonObject body) {
+        final String[] path = requestUri.split("\\?")[0].substring("/test/".length()).split("/");
+
+        switch (method) {
+        case "HEAD":
+            // The runtime removes the entity of HEAD responses
+            return () -> Response.fromResponse(getResourceMethod("GET", requestUri, body).get()).entity(null).build();
+        case "POST":
+            return () -> target.create(path[0], body);
+        case "PATCH":
+            return () -> target.patch(path[0], path[1], body);
+        case "DELETE":
+            return () -> target.delete(path[0], path[1]);
+        default:
+            break;
+        }
+
+        switch (path.length) {
+        case 1:
+            return () -> target.index(path[0]);
+        case 2:
+            return () -> target.read(path[0], path[1]);
+        case 3:
+            return () -> target.readRelated(path[0], path[1], path[2]);
+        default:
+            return () -> target.readRelationship(path[0], path[1], path[3]);
+        }
     }
 
     @ParameterizedTest
@@ -325,6 +627,55 @@ class JsonApiResourceTest {
                            () -> target.delete(resourceType, resourceId));
     }
 
+    @ParameterizedTest
+    @DelimitedFileSource(
+        delimiter = '|',
+        lineSeparator = "@\n",
+        files = {
+            "total-results.txt",
+            "relationship-counts.txt",
+            "counted-relationships.txt",
+            "filter-operators.txt",
+            "read-only.txt",
+            "cacheable.txt",
+            "streaming.txt",
+            "query-limits.txt",
+            "response-cache.txt",
+            "referenced-by-id.txt" })
+    void testResourceTypeOptions(String title,
+                                 String typeOptions,
+                                 String jsonDml,
+                                 String requests)
+            throws JSONException {
+
+        target.initialize(resourceTypes(readObject(typeOptions)));
+        executeDml(jsonDml);
+
+        for (JsonValue request : readArray(requests)) {
+            testRequest(request.asJsonObject());
+        }
+    }
+
+    @ParameterizedTest
+    @DelimitedFileSource(
+        delimiter = '|',
+        lineSeparator = "@\n",
+        files = {
+            "conditional-get.txt",
+            "count-only.txt",
+            "query-plans.txt" })
+    void testRequests(String title,
+                      String jsonDml,
+                      String requests)
+            throws JSONException {
+
+        executeDml(jsonDml);
+
+        for (JsonValue request : readArray(requests)) {
+            testRequest(request.asJsonObject());
+        }
+    }
+
     @ParameterizedTest
     @ValueSource(
         strings = {